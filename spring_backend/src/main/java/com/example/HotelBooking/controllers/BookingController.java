@@ -2,8 +2,12 @@ package com.example.HotelBooking.controllers;
 
 import com.example.HotelBooking.dtos.BookingDTO;
 import com.example.HotelBooking.dtos.BookingStatusResponse;
+import com.example.HotelBooking.dtos.GroupBookingDTO;
 import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.dtos.RoomHoldDTO;
 import com.example.HotelBooking.services.BookingService;
+import com.example.HotelBooking.services.IdempotencyStore;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +22,7 @@ import java.math.BigDecimal;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping("/all")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -28,11 +33,59 @@ public class BookingController {
 
     @PostMapping
     @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
-    public ResponseEntity<Response> createBooking(@RequestBody BookingDTO bookingDTO){
-        return ResponseEntity.ok(bookingService.createBooking(bookingDTO));
+    public ResponseEntity<Response> createBooking(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody BookingDTO bookingDTO){
+        return idempotencyStore.execute(idempotencyKey, "POST /api/bookings", bookingDTO,
+                () -> ResponseEntity.ok(bookingService.createBooking(bookingDTO)));
     }
 
 
+    @PostMapping("/group")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> createGroupBooking(@Valid @RequestBody GroupBookingDTO groupBookingDTO){
+        return ResponseEntity.ok(bookingService.createGroupBooking(groupBookingDTO));
+    }
+
+
+    @PostMapping("/async")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> submitBooking(@RequestBody BookingDTO bookingDTO){
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(bookingService.submitBooking(bookingDTO));
+    }
+
+
+    @GetMapping("/tickets/{ticketId}")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> getBookingTicket(@PathVariable String ticketId){
+        return ResponseEntity.ok(bookingService.getBookingTicket(ticketId));
+    }
+
+
+    @PostMapping("/holds")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> placeHold(@Valid @RequestBody RoomHoldDTO roomHoldDTO){
+        return ResponseEntity.ok(bookingService.placeHold(roomHoldDTO));
+    }
+
+
+    @DeleteMapping("/holds/{holdId}")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> releaseHold(@PathVariable String holdId){
+        return ResponseEntity.ok(bookingService.releaseHold(holdId));
+    }
+
+
+    @GetMapping("/history")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getBookingHistory(
+            @RequestParam(required = false) String reference,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ){
+        return ResponseEntity.ok(bookingService.getBookingHistory(reference, page, size));
+    }
+
     @GetMapping("/{reference}")
     public ResponseEntity<Response> findBookingByReference(@PathVariable String reference){
         return ResponseEntity.ok(bookingService.findBookingByReference(reference));
@@ -0,0 +1,22 @@
+package com.example.HotelBooking.controllers;
+
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.services.JobLeaseManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobLeaseManager jobLeaseManager;
+
+    @GetMapping("/leases")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getJobLeases(){
+        return ResponseEntity.ok(jobLeaseManager.getJobLeases());
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.HotelBooking.controllers;
 
+import com.example.HotelBooking.dtos.AvailabilityCheckRequest;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomRateDTO;
 import com.example.HotelBooking.enums.RoomType;
 import com.example.HotelBooking.services.RoomService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -99,6 +105,37 @@ public class RoomController {
     }
 
 
+    @GetMapping("/available/cache-stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getAvailableRoomsCacheStats(){
+        return ResponseEntity.ok(roomService.getAvailableRoomsCacheStats());
+    }
+
+
+    @PostMapping("/rates")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> uploadRoomRates(@RequestBody List<@NotNull @Valid RoomRateDTO> rates){
+        return ResponseEntity.ok(roomService.uploadRoomRates(rates));
+    }
+
+
+    @GetMapping("/available/flexible")
+    public ResponseEntity<Response> getFlexibleAvailableRooms(
+            @RequestParam LocalDate windowStart,
+            @RequestParam LocalDate windowEnd,
+            @RequestParam int nights,
+            @RequestParam(required = false) RoomType roomType
+    ){
+        return ResponseEntity.ok(roomService.getFlexibleAvailableRooms(windowStart, windowEnd, nights, roomType));
+    }
+
+
+    @PostMapping("/available/batch")
+    public ResponseEntity<Response> checkAvailabilityBatch(@RequestBody List<@NotNull @Valid AvailabilityCheckRequest> requests){
+        return ResponseEntity.ok(roomService.checkAvailabilityBatch(requests));
+    }
+
+
     @GetMapping("/types")
     public ResponseEntity<List<RoomType>> getAllRoomTypes(){
         return ResponseEntity.ok(roomService.getAllRoomTypes());
@@ -112,6 +149,30 @@ public class RoomController {
     }
 
 
+    @GetMapping("/history")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getRoomNightHistory(
+            @RequestParam Long roomId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ){
+        return ResponseEntity.ok(roomService.getRoomNightHistory(roomId, startDate, endDate));
+    }
+
+
+    @GetMapping("/occupancy")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getOccupancyGrid(
+            @RequestParam LocalDate startDate,
+            @RequestParam(defaultValue = "60") int days
+    ){
+        StreamingResponseBody body = roomService.getOccupancyGrid(startDate, days);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+
 
 
 
@@ -0,0 +1,27 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AvailabilityCheckRequest {
+
+    @NotNull(message = "Room id is required")
+    private Long roomId;
+
+    @NotNull(message = "Check in date is required")
+    private LocalDate checkInDate;
+
+    @NotNull(message = "Check out date is required")
+    private LocalDate checkOutDate;
+}
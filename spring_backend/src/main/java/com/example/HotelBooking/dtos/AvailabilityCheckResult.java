@@ -0,0 +1,27 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityCheckResult {
+
+    private Long roomId;
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+
+    private boolean available;
+
+    // First booked night inside [checkInDate, checkOutDate), null when available
+    private LocalDate firstConflictDate;
+}
@@ -42,10 +42,16 @@ public class BookingDTO {
 
     private BigDecimal totalPrice;
 
+    // Reference of the lead booking when the room was booked as part of a group
+    private String groupReference;
+
     private RoomDTO room;
 
     private UserDTO user;
 
     // Thêm vào BookingDTO class
     private List<GuestDTO> guests;
+
+    // Hold placed when the room was selected, consumed when the booking is created
+    private String holdId;
 }
@@ -0,0 +1,35 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.BookingTicketStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingTicketDTO {
+
+    private String ticketId;
+
+    private BookingTicketStatus status;
+
+    // Reason when the booking was rejected or failed
+    private String message;
+
+    private String bookingReference;
+
+    private String paymentUrl;
+
+    private BookingDTO booking;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+}
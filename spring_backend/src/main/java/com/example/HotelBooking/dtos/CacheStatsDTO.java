@@ -0,0 +1,27 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CacheStatsDTO {
+
+    private String name;
+
+    private int size;
+    private int maxSize;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private double hitRatio;
+    private double missRatio;
+}
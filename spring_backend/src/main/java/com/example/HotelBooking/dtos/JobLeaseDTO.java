@@ -0,0 +1,30 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.JobRunStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobLeaseDTO {
+
+    private String jobName;
+
+    private String owner;
+    private LocalDateTime leaseUntil;
+    private boolean leaseHeld;
+
+    private LocalDateTime lastStartedAt;
+    private LocalDateTime lastFinishedAt;
+    private Long lastDurationMs;
+    private JobRunStatus lastStatus;
+    private String lastError;
+}
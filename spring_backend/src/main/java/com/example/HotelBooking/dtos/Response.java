@@ -1,6 +1,7 @@
 package com.example.HotelBooking.dtos;
 
 
+import com.example.HotelBooking.enums.RoomType;
 import com.example.HotelBooking.enums.UserRole;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -35,10 +37,27 @@ public class Response {
     //Booking data output
     private BookingDTO booking;
     private List<BookingDTO> bookings;
+    private String paymentUrl;
+    private BookingTicketDTO ticket;
+    private GroupBookingDTO groupBooking;
 
     //Room data output
     private RoomDTO room;
     private List<RoomDTO> rooms;
+    private Map<RoomType, Integer> roomsLeft;
+    private List<RoomNightDTO> roomNights;
+
+    //Flexible date search output
+    private List<StayOptionDTO> stayOptions;
+
+    //Availability check output
+    private List<AvailabilityCheckResult> availabilityResults;
+
+    //Checkout hold output
+    private RoomHoldDTO hold;
+
+    //Cache statistics output
+    private CacheStatsDTO cacheStats;
 
     //Payment data output
     private PaymentDTO payment;
@@ -48,6 +67,9 @@ public class Response {
     private NotificationDTO notification;
     private List<NotificationDTO> notifications;
 
+    //Job lease output
+    private List<JobLeaseDTO> jobLeases;
+
     private final LocalDateTime timestamp = LocalDateTime.now();
 
 
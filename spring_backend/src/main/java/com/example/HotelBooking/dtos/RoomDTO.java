@@ -33,5 +33,7 @@ public class RoomDTO {
 
     private String imageUrl; //this will hold the room picture
 
+    private BigDecimal quote; //total price of the searched stay, only set by the available rooms search
+
 
 }
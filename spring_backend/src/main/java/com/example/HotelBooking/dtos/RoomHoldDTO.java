@@ -0,0 +1,34 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RoomHoldDTO {
+
+    private String holdId;
+
+    @NotNull(message = "Room id is required")
+    private Long roomId;
+
+    @NotNull(message = "Check in date is required")
+    private LocalDate checkInDate;
+
+    @NotNull(message = "Check out date is required")
+    private LocalDate checkOutDate;
+
+    private LocalDateTime expiresAt;
+}
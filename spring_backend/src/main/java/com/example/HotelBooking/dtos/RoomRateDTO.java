@@ -0,0 +1,44 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * One line of a rate upload: the price of the room for the nights [startDate, endDate),
+ * optionally only on some days of the week (e.g. FRIDAY and SATURDAY for a weekend rate).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RoomRateDTO {
+
+    @NotNull(message = "Room id is required")
+    private Long roomId;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    // Exclusive, same as a check-out date
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.1", message = "Price must be at least 0.1")
+    private BigDecimal price;
+
+    private Set<DayOfWeek> daysOfWeek;
+}
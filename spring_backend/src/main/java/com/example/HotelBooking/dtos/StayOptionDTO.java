@@ -0,0 +1,25 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StayOptionDTO {
+
+    private RoomDTO room;
+
+    private Integer nights;
+
+    // Every check-in date in the window for which the room is free for the whole stay
+    private List<LocalDate> checkInDates;
+}
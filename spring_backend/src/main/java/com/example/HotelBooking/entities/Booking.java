@@ -17,7 +17,14 @@ import java.util.List;
 
 @Entity
 @Data
-@Table(name = "bookings")
+@Table(name = "bookings",
+        indexes = {
+                @Index(name = "idx_booking_group", columnList = "group_reference"),
+                @Index(name = "idx_booking_payment_created", columnList = "payment_status, created_at"),
+                @Index(name = "idx_booking_user_payment_status", columnList = "user_id, payment_status"),
+                @Index(name = "idx_booking_status_check_in", columnList = "booking_status, check_in_date"),
+                @Index(name = "idx_booking_status_check_out", columnList = "booking_status, check_out_date")
+        })
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -34,12 +41,14 @@ public class Booking {
     private LocalDate checkInDate;
     private LocalDate checkOutDate;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @Enumerated(EnumType.STRING)
     private BookingStatus bookingStatus;
 
     @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status")
     private PaymentStatus paymentStatus;
 
     // THÊM: Lưu giá phòng tại thời điểm booking
@@ -48,6 +57,10 @@ public class Booking {
 
     private BigDecimal totalPrice;
 
+    // Bookings made together share the reference of the lead booking, which carries the payment link
+    @Column(name = "group_reference")
+    private String groupReference;
+
     @ManyToOne
     @JoinColumn(name = "room_id")
     private Room room;
@@ -0,0 +1,77 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checked out or cancelled booking moved out of bookings by HistoryArchiver, read only.
+ * Keeps the id of the original row, room and user are plain ids as they may be deleted later.
+ */
+@Entity
+@Data
+@Table(name = "bookings_history",
+        indexes = {
+                @Index(name = "idx_booking_history_reference", columnList = "booking_reference"),
+                @Index(name = "idx_booking_history_room_check_in", columnList = "room_id, check_in_date")
+        })
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingHistory {
+
+    @Id
+    private Long id;
+
+    @Column(name = "booking_reference", nullable = false)
+    private String bookingReference;
+
+    @Column(name = "check_in_date")
+    private LocalDate checkInDate;
+
+    @Column(name = "check_out_date")
+    private LocalDate checkOutDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "booking_status")
+    private BookingStatus bookingStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status")
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "price_per_night_at_booking")
+    private BigDecimal pricePerNightAtBooking;
+
+    @Column(name = "total_price")
+    private BigDecimal totalPrice;
+
+    @Column(name = "group_reference")
+    private String groupReference;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @OneToMany(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", insertable = false, updatable = false)
+    private List<GuestHistory> guests = new ArrayList<>();
+}
@@ -0,0 +1,41 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Guest of an archived booking, moved to guests_history together with it.
+ */
+@Entity
+@Data
+@Table(name = "guests_history",
+        indexes = {@Index(name = "idx_guest_history_booking", columnList = "booking_id")})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class GuestHistory {
+
+    @Id
+    private Long id;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "phone_number")
+    private String phoneNumber;
+
+    @Column(name = "identity_number")
+    private String identityNumber;
+}
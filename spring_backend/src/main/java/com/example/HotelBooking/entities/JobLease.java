@@ -0,0 +1,50 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.JobRunStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of a scheduled job shared by every backend instance, the node that moves leaseUntil forward
+ * runs the job for that tick. Also keeps the outcome of the last run for monitoring.
+ */
+@Entity
+@Data
+@Table(name = "job_leases")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobLease {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    // Node holding or last holding the lease
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_finished_at")
+    private LocalDateTime lastFinishedAt;
+
+    @Column(name = "last_duration_ms")
+    private Long lastDurationMs;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_status")
+    private JobRunStatus lastStatus;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
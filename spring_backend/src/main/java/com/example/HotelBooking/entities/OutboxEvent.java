@@ -0,0 +1,60 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect written in the same transaction as the change that caused it, delivered by OutboxDispatcher
+ * once that transaction has committed.
+ */
+@Entity
+@Data
+@Table(name = "outbox_events",
+        indexes = {@Index(name = "idx_outbox_status_id", columnList = "status, id")})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private NotificationType type;
+
+    @Column(name = "booking_reference")
+    private String bookingReference;
+
+    // JSON of the NotificationDTO to deliver
+    @Column(name = "payload", columnDefinition = "LONGTEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // Set by the instance sending the event, others skip it until then
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -12,7 +12,10 @@ import java.time.LocalDate;
 @Data
 @Table(name = "room_availability",
         uniqueConstraints = {@UniqueConstraint(columnNames = {"room_id", "date"})},
-        indexes = {@Index(name = "idx_room_date", columnList = "room_id, date")})
+        indexes = {
+                @Index(name = "idx_room_date", columnList = "room_id, date"),
+                @Index(name = "idx_availability_date", columnList = "date")
+        })
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,41 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Night of room_availability older than the archive horizon, moved here by HistoryArchiver. Read only.
+ */
+@Entity
+@Data
+@Table(name = "room_availability_history",
+        indexes = {@Index(name = "idx_room_history_room_date", columnList = "room_id, date")})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomAvailabilityHistory {
+
+    @Id
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "is_booked", nullable = false)
+    private boolean booked;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,37 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Price of one night of a room. Nights without a row are charged the room's pricePerNight.
+ */
+@Entity
+@Data
+@Table(name = "room_rates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_rate_room_date", columnNames = {"room_id", "rate_date"}),
+        indexes = @Index(name = "idx_room_rate_date", columnList = "rate_date"))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", nullable = false)
+    private Room room;
+
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "price", nullable = false)
+    private BigDecimal price;
+}
@@ -0,0 +1,44 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One row per contiguous reserved stay, nights [startDate, endDate). Used instead of one
+ * room_availability row per night when booking.availability.storage=interval.
+ */
+@Entity
+@Data
+@Table(name = "room_reservation_intervals",
+        indexes = {
+                @Index(name = "idx_interval_room_dates", columnList = "room_id, start_date, end_date"),
+                @Index(name = "idx_interval_booking", columnList = "booking_id")
+        })
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomReservationInterval {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", nullable = false)
+    private Room room;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    // Exclusive, same as the booking check-out date
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id")
+    private Booking booking;
+}
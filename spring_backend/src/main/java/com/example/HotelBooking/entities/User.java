@@ -38,6 +38,12 @@ public class User {
     private UserRole role; //e.g CUSTOMER, ADMIN
 
     private Boolean isActive;
+
+    // Maintained by UserRepository statements only, see PendingBookingCounter
+    @Column(name = "pending_bookings", insertable = false, updatable = false,
+            columnDefinition = "INT DEFAULT 0 NOT NULL")
+    private Integer pendingBookings;
+
     private final LocalDateTime createdAt = LocalDateTime.now();
 
 }
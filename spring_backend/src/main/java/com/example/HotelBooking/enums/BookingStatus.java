@@ -1,5 +1,5 @@
 package com.example.HotelBooking.enums;
 
 public enum BookingStatus {
-    BOOKED, CHECKED_IN, CHECKED_OUT, CANCELLED
+    BOOKED, CHECKED_IN, CHECKED_OUT, CANCELLED, NO_SHOW
 }
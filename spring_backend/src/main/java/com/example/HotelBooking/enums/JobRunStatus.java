@@ -0,0 +1,5 @@
+package com.example.HotelBooking.enums;
+
+public enum JobRunStatus {
+    RUNNING, SUCCEEDED, FAILED
+}
@@ -0,0 +1,133 @@
+package com.example.HotelBooking.payments;
+
+import com.example.HotelBooking.entities.PaymentLink;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.repositories.PaymentLinkRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Signed payment tokens: "v1." + base64url(bookingId, expiry, nonce) + "." + base64url(HMAC-SHA256).
+ * The token carries everything needed to check it, so malformed, forged and expired tokens are rejected
+ * without touching the database, and a valid one leads straight to the booking by primary key.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentTokenService {
+
+    private static final String VERSION = "v1.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_BYTES = 8 + 8 + 16; // booking id, expiry epoch second, nonce
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${payment.token.secret:${secreteJwtString}}")
+    private String secret;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    private void init() {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String issue(Long bookingId, LocalDateTime expiresAt) {
+        byte[] nonce = new byte[16];
+        secureRandom.nextBytes(nonce);
+
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(bookingId)
+                .putLong(expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond())
+                .put(nonce)
+                .array();
+
+        String encodedPayload = ENCODER.encodeToString(payload);
+        return VERSION + encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * Booking id and expiry of the token. Tokens issued before signing was introduced are still looked up
+     * in payment_links, anything else that fails the signature check is rejected right away.
+     */
+    public PaymentToken parse(String token) {
+        if (token == null) {
+            throw new NotFoundException("Invalid payment token");
+        }
+        if (!token.startsWith(VERSION)) {
+            return parseLegacy(token);
+        }
+
+        int separator = token.indexOf('.', VERSION.length());
+        if (separator < 0) {
+            throw new NotFoundException("Invalid payment token");
+        }
+        String encodedPayload = token.substring(VERSION.length(), separator);
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(encodedPayload);
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new NotFoundException("Invalid payment token");
+        }
+
+        // Constant time comparison, a forged token must not learn anything from the response time
+        if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(sign(encodedPayload), signature)) {
+            throw new NotFoundException("Invalid payment token");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long bookingId = buffer.getLong();
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong()), ZoneId.systemDefault());
+        return new PaymentToken(bookingId, expiresAt);
+    }
+
+    // Old random tokens are 64 alphanumeric characters, other shapes cannot exist in payment_links
+    private PaymentToken parseLegacy(String token) {
+        if (token.length() != 64 || !token.chars().allMatch(Character::isLetterOrDigit)) {
+            throw new NotFoundException("Invalid payment token");
+        }
+
+        PaymentLink link = paymentLinkRepository.findByToken(token)
+                .orElseThrow(() -> new NotFoundException("Invalid payment token"));
+        return new PaymentToken(link.getBooking().getId(), link.getExpiresAt());
+    }
+
+    private byte[] sign(String encodedPayload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign payment token", e);
+        }
+    }
+
+    public record PaymentToken(Long bookingId, LocalDateTime expiresAt) {
+
+        public boolean isExpired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+}
@@ -1,24 +1,22 @@
 package com.example.HotelBooking.payments;
 
 import com.example.HotelBooking.entities.Booking;
-import com.example.HotelBooking.entities.PaymentLink;
 import com.example.HotelBooking.enums.PaymentStatus;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
-import com.example.HotelBooking.repositories.PaymentLinkRepository;
+import com.example.HotelBooking.repositories.BookingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PaymentValidationService {
 
-    private final PaymentLinkRepository paymentLinkRepository;
+    private final PaymentTokenService paymentTokenService;
+    private final BookingRepository bookingRepository;
 
     /**
      * Validate payment token và trả về booking
@@ -26,15 +24,16 @@ public class PaymentValidationService {
      */
     @Transactional(readOnly = true)
     public void validatePaymentToken(String token) {
-        PaymentLink link = paymentLinkRepository.findByToken(token)
-                .orElseThrow(() -> new NotFoundException("Invalid payment token"));
+        // Signature and expiry are checked in memory, only a valid token reaches the database
+        PaymentTokenService.PaymentToken paymentToken = paymentTokenService.parse(token);
 
         // Check expired
-        if (link.getExpiresAt().isBefore(LocalDateTime.now())) {
+        if (paymentToken.isExpired()) {
             throw new InvalidBookingStateAndDateException("Payment link has expired");
         }
 
-        Booking booking = link.getBooking();
+        Booking booking = bookingRepository.findById(paymentToken.bookingId())
+                .orElseThrow(() -> new NotFoundException("Invalid payment token"));
 
         // Check already paid
         if (booking.getPaymentStatus() == PaymentStatus.PAID) {
@@ -3,15 +3,18 @@ package com.example.HotelBooking.payments.paypal;
 import com.example.HotelBooking.dtos.NotificationDTO;
 import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.NotificationType;
 import com.example.HotelBooking.enums.PaymentGateway;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
 import com.example.HotelBooking.payments.dto.PaymentRequest;
 import com.example.HotelBooking.payments.dto.PaymentResponse;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.PaymentRepository;
 import com.example.HotelBooking.services.NotificationService;
+import com.example.HotelBooking.services.PendingBookingCounter;
 import com.paypal.core.PayPalHttpClient;
 import com.paypal.http.HttpResponse;
 import com.paypal.orders.*;
@@ -35,6 +38,7 @@ public class PaypalService {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
     private final NotificationService notificationService;
+    private final PendingBookingCounter pendingBookingCounter;
 
     // 1. Tạo Order trên PayPal (Tương tự createPaymentIntent của Stripe)
     public String createOrder(PaymentRequest paymentRequest) {
@@ -86,7 +90,8 @@ public class PaypalService {
 
             // Lấy bookingReference từ purchase unit
             String bookingReference = order.purchaseUnits().get(0).referenceId();
-            Booking booking = bookingRepository.findByBookingReference(bookingReference)
+            // Locked like StripeService, a concurrent capture or the expiry job waits for this one
+            Booking booking = bookingRepository.findByBookingReferenceForUpdate(bookingReference)
                     .orElseThrow(() -> new NotFoundException("Booking Not Found"));
 
             // THÊM: Validate booking chưa PAID
@@ -98,6 +103,12 @@ public class PaypalService {
                         .build();
             }
 
+            // Expired or cancelled while the customer was paying, its room may already be booked again
+            if (booking.getBookingStatus() == BookingStatus.CANCELLED) {
+                log.warn("PayPal order {} captured for cancelled booking {}", orderId, bookingReference);
+                throw new InvalidBookingStateAndDateException("Booking " + bookingReference + " is cancelled");
+            }
+
             // Kiểm tra trạng thái từ PayPal
             if ("COMPLETED".equals(order.status())) { // PayPal capture status là "COMPLETED", không phải "PAID"
                 PurchaseUnit purchaseUnit = order.purchaseUnits().get(0);
@@ -136,8 +147,12 @@ public class PaypalService {
                 paymentRepository.save(payment);
 
                 // Cập nhật Booking
+                pendingBookingCounter.releasePaid(booking);
                 booking.setPaymentStatus(PaymentStatus.PAID);
                 bookingRepository.save(booking);
+                if (booking.getGroupReference() != null) {
+                    bookingRepository.updatePaymentStatusByGroupReference(booking.getGroupReference(), PaymentStatus.PAID);
+                }
 
                 // Gửi Email thành công
                 sendNotification(booking, true, null);
@@ -160,8 +175,12 @@ public class PaypalService {
                 paymentRepository.save(failedPayment);
 
                 // Update booking
+                pendingBookingCounter.releasePaid(booking);
                 booking.setPaymentStatus(PaymentStatus.FAILED);
                 bookingRepository.save(booking);
+                if (booking.getGroupReference() != null) {
+                    bookingRepository.updatePaymentStatusByGroupReference(booking.getGroupReference(), PaymentStatus.FAILED);
+                }
 
                 // Send failure notification
                 sendNotification(booking, false, "Payment status: " + order.status());
@@ -172,7 +191,7 @@ public class PaypalService {
                         .build();
             }
 
-        } catch (NotFoundException e) {
+        } catch (NotFoundException | InvalidBookingStateAndDateException e) {
             throw e;
         } catch (Exception e) {
             // Xử lý trường hợp lỗi (có thể lưu log failure)
@@ -194,6 +213,6 @@ public class PaypalService {
             notificationDTO.setSubject("Booking Payment Failed (PayPal)");
             notificationDTO.setBody("Your payment failed. Reason: " + failureReason);
         }
-        notificationService.sendEmail(notificationDTO);
+        notificationService.enqueueEmail(notificationDTO);
     }
 }
\ No newline at end of file
@@ -2,10 +2,12 @@ package com.example.HotelBooking.payments.stripe;
 
 import com.example.HotelBooking.payments.PaymentValidationService;
 import com.example.HotelBooking.payments.dto.PaymentRequest;
+import com.example.HotelBooking.services.IdempotencyStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,25 +17,34 @@ public class StripeController {
 
     private final StripeService stripeService;
     private final PaymentValidationService paymentValidationService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/pay")
-    public ResponseEntity<Map<String, String>> createPaymentIntent(@RequestParam String token, @RequestBody PaymentRequest paymentRequest){
-        // Validate token trước khi tạo payment intent
-        paymentValidationService.validatePaymentToken(token);
+    public ResponseEntity<Map<String, String>> createPaymentIntent(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestParam String token, @RequestBody PaymentRequest paymentRequest){
+        return idempotencyStore.execute(idempotencyKey, "POST /api/stripe/pay", List.of(token, paymentRequest), () -> {
+            // Validate token trước khi tạo payment intent
+            paymentValidationService.validatePaymentToken(token);
 
-        String clientSecret = stripeService.createPaymentIntent(paymentRequest);
+            String clientSecret = stripeService.createPaymentIntent(paymentRequest);
 
-        return ResponseEntity.ok(Map.of("clientSecret", clientSecret));
+            return ResponseEntity.ok(Map.of("clientSecret", clientSecret));
+        });
     }
 
     @PutMapping("/update")
-    public ResponseEntity<Void> updatePaymentBooking(@RequestParam String token, @RequestBody PaymentRequest paymentRequest){
-        // Validate lần nữa để đảm bảo
-        paymentValidationService.validatePaymentToken(token);
-
-        // Update booking
-        stripeService.updatePaymentBooking(paymentRequest);
-
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Void> updatePaymentBooking(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestParam String token, @RequestBody PaymentRequest paymentRequest){
+        return idempotencyStore.execute(idempotencyKey, "PUT /api/stripe/update", List.of(token, paymentRequest), () -> {
+            // Validate lần nữa để đảm bảo
+            paymentValidationService.validatePaymentToken(token);
+
+            // Update booking
+            stripeService.updatePaymentBooking(paymentRequest);
+
+            return ResponseEntity.ok().build();
+        });
     }
 }
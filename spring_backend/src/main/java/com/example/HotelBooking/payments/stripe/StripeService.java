@@ -4,14 +4,17 @@ package com.example.HotelBooking.payments.stripe;
 import com.example.HotelBooking.dtos.NotificationDTO;
 import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.NotificationType;
 import com.example.HotelBooking.enums.PaymentGateway;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
 import com.example.HotelBooking.payments.dto.PaymentRequest;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.PaymentRepository;
 import com.example.HotelBooking.services.NotificationService;
+import com.example.HotelBooking.services.PendingBookingCounter;
 import com.stripe.Stripe;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
@@ -32,6 +35,7 @@ public class StripeService {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
     private final NotificationService notificationService;
+    private final PendingBookingCounter pendingBookingCounter;
 
     @Value("${stripe.api.secret.key}")
     private String secreteKey;
@@ -66,7 +70,7 @@ public class StripeService {
     public void updatePaymentBooking(PaymentRequest paymentRequest) {
         String bookingReference = paymentRequest.getBookingReference();
 
-        Booking booking = bookingRepository.findByBookingReference(bookingReference)
+        Booking booking = bookingRepository.findByBookingReferenceForUpdate(bookingReference)
                 .orElseThrow(() -> new NotFoundException("Booking Not Found"));
 
         // THÊM validation này:
@@ -74,6 +78,12 @@ public class StripeService {
             throw new RuntimeException("Payment already completed for this booking");
         }
 
+        // Expired or cancelled while the customer was paying, its room may already be booked again
+        if (booking.getBookingStatus() == BookingStatus.CANCELLED) {
+            log.warn("Payment {} received for cancelled booking {}", paymentRequest.getTransactionId(), bookingReference);
+            throw new InvalidBookingStateAndDateException("Booking " + bookingReference + " is cancelled");
+        }
+
         // THÊM: Check duplicate transactionId (Idempotency)
         if (paymentRequest.isSuccess() && paymentRequest.getTransactionId() != null) {
             boolean exists = paymentRepository.existsByTransactionId(paymentRequest.getTransactionId());
@@ -105,24 +115,31 @@ public class StripeService {
                 .bookingReference(bookingReference)
                 .build();
 
+        pendingBookingCounter.releasePaid(booking);
         if (paymentRequest.isSuccess()) {
             // Update booking status
             booking.setPaymentStatus(PaymentStatus.PAID);
             bookingRepository.save(booking); //Update the booking
+            if (booking.getGroupReference() != null) {
+                bookingRepository.updatePaymentStatusByGroupReference(booking.getGroupReference(), PaymentStatus.PAID);
+            }
 
             // Send success notification
             notificationDTO.setSubject("Booking Payment Successful");
             notificationDTO.setBody("Congratulations! Your payment for booking " + bookingReference + " is successful.");
-            notificationService.sendEmail(notificationDTO); //send email
+            notificationService.enqueueEmail(notificationDTO); //send email
         } else {
             // Update booking status
             booking.setPaymentStatus(PaymentStatus.FAILED);
             bookingRepository.save(booking); //Update the booking
+            if (booking.getGroupReference() != null) {
+                bookingRepository.updatePaymentStatusByGroupReference(booking.getGroupReference(), PaymentStatus.FAILED);
+            }
 
             // Send failure notification
             notificationDTO.setSubject("Booking Payment Failed");
             notificationDTO.setBody("Your payment for booking " + bookingReference + " failed. Reason: " + paymentRequest.getFailureReason());
-            notificationService.sendEmail(notificationDTO); //send email
+            notificationService.enqueueEmail(notificationDTO); //send email
         }
     }
 }
@@ -0,0 +1,139 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Guest;
+import com.example.HotelBooking.entities.RoomRate;
+import com.example.HotelBooking.services.RoomReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch inserts for writes of many rows at once. Bookings use IDENTITY keys, which keeps Hibernate
+ * from batching their inserts, so group bookings go through here instead of saveAll.
+ * Runs in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the bookings in one batch and sets their generated ids.
+     */
+    public void insertBookings(List<Booking> bookings) {
+        if (bookings.isEmpty()) return;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement("""
+                        INSERT INTO bookings (booking_reference, group_reference, check_in_date, check_out_date, created_at,
+                                              booking_status, payment_status, price_per_night_at_booking, total_price,
+                                              room_id, user_id)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Booking booking = bookings.get(i);
+                        ps.setString(1, booking.getBookingReference());
+                        ps.setString(2, booking.getGroupReference());
+                        ps.setDate(3, Date.valueOf(booking.getCheckInDate()));
+                        ps.setDate(4, Date.valueOf(booking.getCheckOutDate()));
+                        ps.setTimestamp(5, Timestamp.valueOf(booking.getCreatedAt()));
+                        ps.setString(6, booking.getBookingStatus().name());
+                        ps.setString(7, booking.getPaymentStatus().name());
+                        ps.setBigDecimal(8, booking.getPricePerNightAtBooking());
+                        ps.setBigDecimal(9, booking.getTotalPrice());
+                        ps.setLong(10, booking.getRoom().getId());
+                        ps.setLong(11, booking.getUser().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                },
+                keyHolder);
+
+        // Keys come back in insert order
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    public void insertGuests(List<Guest> guests) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO guests (first_name, last_name, email, phone_number, identity_number, booking_id)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                guests, BATCH_SIZE, (ps, guest) -> {
+                    ps.setString(1, guest.getFirstName());
+                    ps.setString(2, guest.getLastName());
+                    ps.setString(3, guest.getEmail());
+                    ps.setString(4, guest.getPhoneNumber());
+                    ps.setString(5, guest.getIdentityNumber());
+                    ps.setLong(6, guest.getBooking().getId());
+                });
+    }
+
+    /**
+     * One room_availability row per night of every reservation. Duplicate nights fail on the unique (room_id, date).
+     */
+    public void insertBookedNights(List<RoomReservation> reservations) {
+        List<Object[]> nights = new ArrayList<>();
+        for (RoomReservation reservation : reservations) {
+            for (LocalDate night = reservation.start(); night.isBefore(reservation.end()); night = night.plusDays(1)) {
+                nights.add(new Object[]{reservation.roomId(), night, reservation.bookingId()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO room_availability (room_id, date, is_booked, booking_id) VALUES (?, ?, true, ?)",
+                nights, BATCH_SIZE, (ps, night) -> {
+                    ps.setLong(1, (Long) night[0]);
+                    ps.setDate(2, Date.valueOf((LocalDate) night[1]));
+                    ps.setLong(3, (Long) night[2]);
+                });
+    }
+
+    public void insertReservationIntervals(List<RoomReservation> reservations) {
+        jdbcTemplate.batchUpdate("INSERT INTO room_reservation_intervals (room_id, start_date, end_date, booking_id) VALUES (?, ?, ?, ?)",
+                reservations, BATCH_SIZE, (ps, reservation) -> {
+                    ps.setLong(1, reservation.roomId());
+                    ps.setDate(2, Date.valueOf(reservation.start()));
+                    ps.setDate(3, Date.valueOf(reservation.end()));
+                    ps.setLong(4, reservation.bookingId());
+                });
+    }
+
+    /**
+     * Inserts the rates, replacing the price of nights that already have one (unique (room_id, rate_date)).
+     */
+    public void upsertRoomRates(List<RoomRate> rates) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO room_rates (room_id, rate_date, price) VALUES (?, ?, ?)
+                        ON DUPLICATE KEY UPDATE price = VALUES(price)
+                        """,
+                rates, BATCH_SIZE, (ps, rate) -> {
+                    ps.setLong(1, rate.getRoom().getId());
+                    ps.setDate(2, Date.valueOf(rate.getDate()));
+                    ps.setBigDecimal(3, rate.getPrice());
+                });
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.BookingHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookingHistoryRepository extends JpaRepository<BookingHistory, Long> {
+
+    @EntityGraph(attributePaths = "guests")
+    Optional<BookingHistory> findByBookingReference(String bookingReference);
+
+    // Latest archived first, guests are not loaded
+    List<BookingHistory> findAllByOrderByIdDesc(Pageable pageable);
+
+    // Copies the bookings into bookings_history in one statement, the rows are deleted from bookings afterwards
+    @Modifying
+    @Query(value = """
+                INSERT INTO bookings_history (id, booking_reference, check_in_date, check_out_date, created_at,
+                    booking_status, payment_status, price_per_night_at_booking, total_price, group_reference,
+                    room_id, user_id, archived_at)
+                SELECT id, booking_reference, check_in_date, check_out_date, created_at,
+                    booking_status, payment_status, price_per_night_at_booking, total_price, group_reference,
+                    room_id, user_id, :archivedAt
+                FROM bookings WHERE id IN :ids
+            """, nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -2,12 +2,20 @@ package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,14 +28,128 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Optional<Booking> findByBookingReferenceAndUserEmail(String bookingReference, String email);
 
+    // Locked until the transaction ends, so a payment and an expiry or a cancellation of the booking do not interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.bookingReference = :bookingReference")
+    Optional<Booking> findByBookingReferenceForUpdate(@Param("bookingReference") String bookingReference);
+
     boolean existsByBookingReference(String reference);
 
+    List<Booking> findByGroupReference(String groupReference);
+
+    // Members cancelled on their own are no longer part of the group's payment
+    @Query("SELECT COALESCE(SUM(b.totalPrice), 0) FROM Booking b WHERE b.groupReference = :groupReference " +
+            "AND b.bookingStatus <> com.example.HotelBooking.enums.BookingStatus.CANCELLED")
+    BigDecimal sumTotalPriceByGroupReference(@Param("groupReference") String groupReference);
+
+    // One payment covers every booking of the group that is not cancelled
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStatus = :status WHERE b.groupReference = :groupReference " +
+            "AND b.bookingStatus <> com.example.HotelBooking.enums.BookingStatus.CANCELLED")
+    int updatePaymentStatusByGroupReference(@Param("groupReference") String groupReference,
+                                            @Param("status") PaymentStatus status);
+
     long countByUserAndPaymentStatus(User user, PaymentStatus status);
 
-    // THÊM method này:
-    @Query("SELECT b FROM Booking b WHERE b.paymentStatus = :status AND b.createdAt < :cutoffTime")
-    List<Booking> findExpiredPendingBookings(
-            @Param("status") PaymentStatus status,
-            @Param("cutoffTime") LocalDateTime cutoffTime
-    );
-}
\ No newline at end of file
+    // (userId, count) of the bookings still PENDING among the ids, ordered by user
+    @Query("SELECT b.user.id, COUNT(b) FROM Booking b WHERE b.id IN :ids " +
+            "AND b.paymentStatus = com.example.HotelBooking.enums.PaymentStatus.PENDING " +
+            "GROUP BY b.user.id ORDER BY b.user.id")
+    List<Object[]> countPendingPerUserByIds(@Param("ids") Collection<Long> ids);
+
+    // Bookings of the group a payment of the group moves out of PENDING
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.groupReference = :groupReference " +
+            "AND b.paymentStatus = com.example.HotelBooking.enums.PaymentStatus.PENDING " +
+            "AND b.bookingStatus <> com.example.HotelBooking.enums.BookingStatus.CANCELLED")
+    long countPendingByGroupReference(@Param("groupReference") String groupReference);
+
+    /**
+     * Next page of (id, roomId, checkInDate, checkOutDate, userId, createdAt) of the bookings with the status
+     * created before the cutoff, after the (createdAt, id) cursor. Walks idx_booking_payment_created, and
+     * locks the rows so a payment cannot land between the read and the update of the page.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT b.id, b.room.id, b.checkInDate, b.checkOutDate, b.user.id, b.createdAt
+                FROM Booking b
+                WHERE b.paymentStatus = :status
+                    AND b.createdAt < :cutoffTime
+                    AND (b.createdAt > :afterCreatedAt OR (b.createdAt = :afterCreatedAt AND b.id > :afterId))
+                ORDER BY b.createdAt, b.id
+            """)
+    List<Object[]> findCreatedBeforeAfterCursor(@Param("status") PaymentStatus status,
+                                                @Param("cutoffTime") LocalDateTime cutoffTime,
+                                                @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    /**
+     * Same columns as findCreatedBeforeAfterCursor for the bookings still in the status among the given ones,
+     * including every booking of their groups. Locked like findCreatedBeforeAfterCursor.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT b.id, b.room.id, b.checkInDate, b.checkOutDate, b.user.id, b.createdAt
+                FROM Booking b
+                WHERE b.paymentStatus = :status
+                    AND (b.id IN :ids
+                        OR b.groupReference IN (SELECT g.groupReference FROM Booking g WHERE g.id IN :ids AND g.groupReference IS NOT NULL))
+            """)
+    List<Object[]> findWithGroupByIdsAndStatus(@Param("ids") Collection<Long> ids,
+                                               @Param("status") PaymentStatus status);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.paymentStatus = :paymentStatus, b.bookingStatus = :bookingStatus WHERE b.id IN :ids")
+    int updateStatusesByIds(@Param("ids") Collection<Long> ids,
+                            @Param("paymentStatus") PaymentStatus paymentStatus,
+                            @Param("bookingStatus") BookingStatus bookingStatus);
+
+    // Next chunk of ids of bookings in the statuses that checked out before the cutoff, locked until they are archived
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM Booking b WHERE b.bookingStatus IN :statuses AND b.checkOutDate < :cutoff ORDER BY b.checkOutDate, b.id")
+    List<Long> findIdsToArchive(@Param("statuses") Collection<BookingStatus> statuses,
+                                @Param("cutoff") LocalDate cutoff,
+                                Pageable pageable);
+
+    /**
+     * Next page of (id, roomId, checkInDate, checkOutDate) of the bookings with the status whose check-in is before
+     * the cutoff, after the (checkInDate, id) cursor. Walks idx_booking_status_check_in, rows are locked.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT b.id, b.room.id, b.checkInDate, b.checkOutDate
+                FROM Booking b
+                WHERE b.bookingStatus = :status
+                    AND b.checkInDate < :cutoff
+                    AND (b.checkInDate > :afterDate OR (b.checkInDate = :afterDate AND b.id > :afterId))
+                ORDER BY b.checkInDate, b.id
+            """)
+    List<Object[]> findCheckInBeforeAfterCursor(@Param("status") BookingStatus status,
+                                                @Param("cutoff") LocalDate cutoff,
+                                                @Param("afterDate") LocalDate afterDate,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    // Same as findCheckInBeforeAfterCursor on checkOutDate, walks idx_booking_status_check_out
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT b.id, b.room.id, b.checkInDate, b.checkOutDate
+                FROM Booking b
+                WHERE b.bookingStatus = :status
+                    AND b.checkOutDate < :cutoff
+                    AND (b.checkOutDate > :afterDate OR (b.checkOutDate = :afterDate AND b.id > :afterId))
+                ORDER BY b.checkOutDate, b.id
+            """)
+    List<Object[]> findCheckOutBeforeAfterCursor(@Param("status") BookingStatus status,
+                                                 @Param("cutoff") LocalDate cutoff,
+                                                 @Param("afterDate") LocalDate afterDate,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    // Moves the bookings still in the from status, the payment status is left as it is
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = :to WHERE b.id IN :ids AND b.bookingStatus = :from")
+    int updateBookingStatusByIds(@Param("ids") Collection<Long> ids,
+                                 @Param("from") BookingStatus from,
+                                 @Param("to") BookingStatus to);
+}
@@ -0,0 +1,20 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.GuestHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface GuestHistoryRepository extends JpaRepository<GuestHistory, Long> {
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO guests_history (id, booking_id, first_name, last_name, email, phone_number, identity_number)
+                SELECT id, booking_id, first_name, last_name, email, phone_number, identity_number
+                FROM guests WHERE booking_id IN :bookingIds
+            """, nativeQuery = true)
+    int copyFromGuests(@Param("bookingIds") Collection<Long> bookingIds);
+}
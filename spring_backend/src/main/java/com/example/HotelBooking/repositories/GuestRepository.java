@@ -1,8 +1,16 @@
-// spring_backend/src/main/java/com/example/HotelBooking/repositories/GuestRepository.java
 package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.Guest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 
 public interface GuestRepository extends JpaRepository<Guest, Long> {
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("DELETE FROM Guest g WHERE g.booking.id IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+}
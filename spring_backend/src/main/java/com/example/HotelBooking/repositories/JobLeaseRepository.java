@@ -0,0 +1,50 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.JobLease;
+import com.example.HotelBooking.enums.JobRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    List<JobLease> findAllByOrderByJobNameAsc();
+
+    // Creates the lease row of a job, left alone when another node already did
+    @Modifying
+    @Query(value = "INSERT INTO job_leases (job_name) VALUES (:jobName) ON DUPLICATE KEY UPDATE job_name = job_name",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName);
+
+    // Takes the lease when it has expired, the row lock makes exactly one concurrent caller see 1
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leaseUntil = :leaseUntil, l.lastStartedAt = :now, " +
+            "l.lastStatus = com.example.HotelBooking.enums.JobRunStatus.RUNNING, l.lastError = NULL " +
+            "WHERE l.jobName = :jobName AND (l.leaseUntil IS NULL OR l.leaseUntil <= :now)")
+    int tryAcquire(@Param("jobName") String jobName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Marks a one-off job done from inside its own transaction, whichever node holds the lease
+    @Modifying
+    @Query("UPDATE JobLease l SET l.lastFinishedAt = :finishedAt, " +
+            "l.lastStatus = com.example.HotelBooking.enums.JobRunStatus.SUCCEEDED WHERE l.jobName = :jobName")
+    int markSucceeded(@Param("jobName") String jobName, @Param("finishedAt") LocalDateTime finishedAt);
+
+    // The lease itself is kept until it expires, so nodes firing a little later in the same tick still skip it
+    @Modifying
+    @Query("UPDATE JobLease l SET l.lastFinishedAt = :finishedAt, l.lastDurationMs = :durationMs, " +
+            "l.lastStatus = :status, l.lastError = :error " +
+            "WHERE l.jobName = :jobName AND l.owner = :owner")
+    int recordRun(@Param("jobName") String jobName,
+                  @Param("owner") String owner,
+                  @Param("finishedAt") LocalDateTime finishedAt,
+                  @Param("durationMs") long durationMs,
+                  @Param("status") JobRunStatus status,
+                  @Param("error") String error);
+}
@@ -0,0 +1,26 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest PENDING events no instance is sending, served by idx_outbox_status_id
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = com.example.HotelBooking.enums.OutboxStatus.PENDING " +
+            "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now) ORDER BY e.id")
+    List<OutboxEvent> findUnclaimed(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Returns 1 when this instance got the event, 0 when another one claimed or sent it first
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.id = :id " +
+            "AND e.status = com.example.HotelBooking.enums.OutboxStatus.PENDING " +
+            "AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+}
@@ -1,12 +1,15 @@
 package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.PaymentLink;
+import com.example.HotelBooking.enums.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentLinkRepository extends JpaRepository<PaymentLink, Long> {
@@ -14,4 +17,12 @@ public interface PaymentLinkRepository extends JpaRepository<PaymentLink, Long>
     Optional<PaymentLink> findByToken(String token);
 
     boolean existsByToken(String token);
+
+    // (bookingId, expiresAt) of the links of bookings in the status
+    @Query("SELECT l.booking.id, l.expiresAt FROM PaymentLink l WHERE l.booking.paymentStatus = :status")
+    List<Object[]> findExpiriesByBookingPaymentStatus(@Param("status") PaymentStatus status);
+
+    @Modifying
+    @Query("DELETE FROM PaymentLink l WHERE l.booking.id IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
 }
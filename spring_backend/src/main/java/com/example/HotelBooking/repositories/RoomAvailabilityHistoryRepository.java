@@ -0,0 +1,35 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.RoomAvailabilityHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomAvailabilityHistoryRepository extends JpaRepository<RoomAvailabilityHistory, Long> {
+
+    List<RoomAvailabilityHistory> findByRoomIdAndDateBetweenOrderByDate(Long roomId, LocalDate start, LocalDate end);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO room_availability_history (id, room_id, date, is_booked, booking_id, archived_at)
+                SELECT id, room_id, date, is_booked, booking_id, :archivedAt
+                FROM room_availability WHERE id IN :ids
+            """, nativeQuery = true)
+    int copyFromRoomAvailability(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    // Nights still held by bookings being archived
+    @Modifying
+    @Query(value = """
+                INSERT INTO room_availability_history (id, room_id, date, is_booked, booking_id, archived_at)
+                SELECT id, room_id, date, is_booked, booking_id, :archivedAt
+                FROM room_availability WHERE booking_id IN :bookingIds
+            """, nativeQuery = true)
+    int copyFromRoomAvailabilityByBookingIds(@Param("bookingIds") Collection<Long> bookingIds,
+                                             @Param("archivedAt") LocalDateTime archivedAt);
+}
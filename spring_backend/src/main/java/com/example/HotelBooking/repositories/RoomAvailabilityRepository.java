@@ -1,13 +1,18 @@
 package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.RoomAvailability;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface RoomAvailabilityRepository extends JpaRepository<RoomAvailability, Long> {
     List<RoomAvailability> findByRoomIdAndDateBetween(Long roomId, LocalDate start, LocalDate end);
@@ -18,6 +23,12 @@ public interface RoomAvailabilityRepository extends JpaRepository<RoomAvailabili
                              @Param("start") LocalDate start,
                              @Param("end") LocalDate end);
 
+    @Modifying
+    @Query("DELETE FROM RoomAvailability r WHERE r.room.id IN :roomIds AND r.date BETWEEN :start AND :end AND r.booked = false")
+    void deleteUnbookedRangeForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                     @Param("start") LocalDate start,
+                                     @Param("end") LocalDate end);
+
     // Optional: bulk unset booking (mark available) for a range
     @Modifying
     @Query("UPDATE RoomAvailability r SET r.booked = false, r.booking = null WHERE r.room.id = :roomId AND r.date BETWEEN :start AND :end AND r.booked = true")
@@ -25,6 +36,25 @@ public interface RoomAvailabilityRepository extends JpaRepository<RoomAvailabili
                            @Param("start") LocalDate start,
                            @Param("end") LocalDate end);
 
+    // Every night of the given bookings, released by key instead of by room and date range
+    @Modifying
+    @Query("DELETE FROM RoomAvailability r WHERE r.booking.id IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    // (roomId, date) of every booked night in the range, one ordered range scan over idx_room_date
+    @Query("SELECT r.room.id, r.date FROM RoomAvailability r WHERE r.booked = true AND r.date BETWEEN :start AND :end ORDER BY r.room.id, r.date")
+    List<Object[]> findBookedNightsBetween(@Param("start") LocalDate start,
+                                           @Param("end") LocalDate end);
+
+    @Query("SELECT r.room.id, r.date FROM RoomAvailability r WHERE r.booked = true AND r.room.id IN :roomIds AND r.date BETWEEN :start AND :end")
+    List<Object[]> findBookedNightsForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                            @Param("start") LocalDate start,
+                                            @Param("end") LocalDate end);
+
+    // (roomId, bookingId, date) of every booked night, ordered so consecutive nights of one stay are adjacent
+    @Query("SELECT r.room.id, r.booking.id, r.date FROM RoomAvailability r WHERE r.booked = true ORDER BY r.room.id, r.booking.id, r.date")
+    Stream<Object[]> streamBookedNightsForMigration();
+
     @Query("""
                 SELECT CASE WHEN COUNT(b) = 0 THEN true ELSE false END
                 FROM Booking b
@@ -36,4 +66,9 @@ public interface RoomAvailabilityRepository extends JpaRepository<RoomAvailabili
     boolean isRoomAvailable(@Param("roomId") Long roomId,
                             @Param("checkInDate") LocalDate checkInDate,
                             @Param("checkOutDate") LocalDate checkOutDate);
+
+    // Next chunk of ids of nights before the cutoff, oldest first over idx_availability_date, locked until they are archived
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r.id FROM RoomAvailability r WHERE r.date < :cutoff ORDER BY r.date, r.id")
+    List<Long> findIdsBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
 }
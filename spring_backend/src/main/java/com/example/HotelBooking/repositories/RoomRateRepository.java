@@ -0,0 +1,23 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.RoomRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomRateRepository extends JpaRepository<RoomRate, Long> {
+
+    // (roomId, date, price) of every rate for the nights [start, end)
+    @Query("SELECT r.room.id, r.date, r.price FROM RoomRate r WHERE r.date >= :start AND r.date < :end")
+    List<Object[]> findRatesBetween(@Param("start") LocalDate start,
+                                    @Param("end") LocalDate end);
+
+    @Query("SELECT r.room.id, r.date, r.price FROM RoomRate r WHERE r.room.id IN :roomIds AND r.date >= :start AND r.date < :end")
+    List<Object[]> findRatesForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                     @Param("start") LocalDate start,
+                                     @Param("end") LocalDate end);
+}
@@ -11,6 +11,7 @@ import java.util.List;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
+    List<Room> findByType(RoomType type);
 
     @Query("""
             SELECT r FROM Room r
@@ -0,0 +1,44 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.RoomReservationInterval;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomReservationIntervalRepository extends JpaRepository<RoomReservationInterval, Long> {
+
+    @Query("""
+                SELECT CASE WHEN COUNT(i) = 0 THEN true ELSE false END
+                FROM RoomReservationInterval i
+                WHERE i.room.id = :roomId
+                    AND i.startDate < :end
+                    AND i.endDate > :start
+            """)
+    boolean isRangeFree(@Param("roomId") Long roomId,
+                        @Param("start") LocalDate start,
+                        @Param("end") LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM RoomReservationInterval i WHERE i.booking.id IN :bookingIds")
+    int deleteByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query("SELECT i FROM RoomReservationInterval i WHERE i.room.id = :roomId AND i.startDate < :end AND i.endDate > :start ORDER BY i.startDate")
+    List<RoomReservationInterval> findOverlapping(@Param("roomId") Long roomId,
+                                                  @Param("start") LocalDate start,
+                                                  @Param("end") LocalDate end);
+
+    // (roomId, startDate, endDate) of every interval overlapping [start, end)
+    @Query("SELECT i.room.id, i.startDate, i.endDate FROM RoomReservationInterval i WHERE i.startDate < :end AND i.endDate > :start ORDER BY i.room.id, i.startDate")
+    List<Object[]> findRangesOverlapping(@Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+
+    @Query("SELECT i.room.id, i.startDate, i.endDate FROM RoomReservationInterval i WHERE i.room.id IN :roomIds AND i.startDate < :end AND i.endDate > :start")
+    List<Object[]> findRangesOverlappingForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                                 @Param("start") LocalDate start,
+                                                 @Param("end") LocalDate end);
+}
@@ -2,10 +2,30 @@ package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    // pending_bookings is written only by these statements, never by saving the entity
+
+    // Adds the bookings while the user is below the limit, 0 rows otherwise
+    @Modifying
+    @Query(value = "UPDATE users SET pending_bookings = pending_bookings + :bookings " +
+            "WHERE id = :id AND pending_bookings < :max", nativeQuery = true)
+    int reservePendingBookings(@Param("id") Long id, @Param("bookings") int bookings, @Param("max") int max);
+
+    @Modifying
+    @Query(value = "UPDATE users SET pending_bookings = pending_bookings + :bookings WHERE id = :id", nativeQuery = true)
+    int addPendingBookings(@Param("id") Long id, @Param("bookings") long bookings);
+
+    @Modifying
+    @Query(value = "UPDATE users SET pending_bookings = GREATEST(pending_bookings - :bookings, 0) WHERE id = :id",
+            nativeQuery = true)
+    int releasePendingBookings(@Param("id") Long id, @Param("bookings") long bookings);
 }
@@ -1,6 +1,7 @@
 package com.example.HotelBooking.security;
 
 import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.UserRole;
 import com.example.HotelBooking.exceptions.NotFoundException;
 import com.example.HotelBooking.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,15 +15,25 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
+        AuthUser cached = userDetailsCache.get(username);
+        if (cached != null) return cached;
+
+        long generation = userDetailsCache.generation();
         User user = userRepository.findByEmail(username).
                 orElseThrow(() -> new NotFoundException("User Email Not Found"));
 
-        return AuthUser.builder()
+        AuthUser authUser = AuthUser.builder()
                 .user(user)
                 .build();
+        // Admin endpoints always see the current role and a deleted admin at once, admins are few
+        if (user.getRole() != UserRole.ADMIN) {
+            userDetailsCache.put(username, authUser, generation);
+        }
+        return authUser;
     }
 }
@@ -44,12 +44,15 @@ public class SecurityFilter {
                                 "/api/rooms/all",         // Danh sách phòng (public)
                                 "/api/rooms/types",       // Loại phòng (public)
                                 "/api/rooms/available",   // Search phòng available (public)
+                                "/api/rooms/available/flexible", // Flexible date search (public)
+                                "/api/rooms/available/batch", // Batch availability check (public)
                                 "/api/rooms/{id}",        // Chi tiết phòng (public)
                                 "/api/bookings/status",   // Check payment status với token (public)
                                 "/api-docs/**",           // Swagger docs
                                 "/swagger-ui/**",         // Swagger UI
                                 "/v3/api-docs/**",        // OpenAPI docs
-                                "/rooms/**"               // Images
+                                "/rooms/**",              // Images
+                                "/actuator/health"        // Health check
                         ).permitAll()
 
                         // 2. ADMIN ONLY ENDPOINTS
@@ -58,8 +61,11 @@ public class SecurityFilter {
                                 "/api/rooms/update",      // Sửa phòng
                                 "/api/rooms/delete/**",   // Xóa phòng
                                 "/api/bookings/all",      // Xem tất cả bookings
+                                "/api/bookings/history",  // Bookings đã lưu trữ
                                 "/api/bookings/update",   // Update booking status
-                                "/api/users/all"          // Xem tất cả users
+                                "/api/users/all",         // Xem tất cả users
+                                "/api/jobs/**",           // Lease của scheduled jobs
+                                "/actuator/**"            // Metrics
                         ).hasAuthority("ADMIN")
 
                         // 3. AUTHENTICATED USERS (ADMIN + CUSTOMER)
@@ -67,6 +73,10 @@ public class SecurityFilter {
                                 "/api/bookings",          // POST - Tạo booking mới
                                 "/api/bookings/{reference}", // GET - Xem booking của mình
                                 "/api/bookings/cancel/**", // DELETE - Hủy booking của mình
+                                "/api/bookings/holds/**", // POST/DELETE - Giữ phòng khi checkout
+                                "/api/bookings/async",    // POST - Tạo booking bất đồng bộ
+                                "/api/bookings/group",    // POST - Đặt nhiều phòng cho đoàn
+                                "/api/bookings/tickets/**", // GET - Kết quả booking bất đồng bộ
                                 "/api/users/**",          // User profile endpoints
                                 "/api/stripe/**",         // Stripe payment
                                 "/api/paypal/**"          // PayPal payment
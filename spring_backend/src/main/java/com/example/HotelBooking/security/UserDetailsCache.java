@@ -0,0 +1,73 @@
+package com.example.HotelBooking.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the UserDetails of authenticated callers keyed on email, so a request with a JWT does not
+ * read the users row again. Entries expire after auth.user-cache.ttl-seconds, which bounds how long a change made
+ * outside UserService (role, isActive) or on another instance takes to apply: UserService evicts the user it
+ * updates or deletes from this instance's cache only. Admins are never cached, see CustomUserDetailsService.
+ * The cached User is shared between requests and must not be modified.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    // Bumped on every eviction so a user loaded before it is not cached after it
+    private long generation = 0;
+
+    public UserDetailsCache(@Value("${auth.user-cache.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${auth.user-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserDetailsCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized AuthUser get(String email) {
+        Entry entry = entries.get(email);
+        if (entry == null) return null;
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(email);
+            return null;
+        }
+        return entry.user();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a user loaded after generation() returned expectedGeneration, unless an eviction happened since.
+     */
+    public synchronized void put(String email, AuthUser user, long expectedGeneration) {
+        if (ttlMillis > 0 && generation == expectedGeneration) {
+            entries.put(email, new Entry(user, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public synchronized void evict(String email) {
+        generation++;
+        entries.remove(email);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    private record Entry(AuthUser user, long expiresAt) {
+    }
+}
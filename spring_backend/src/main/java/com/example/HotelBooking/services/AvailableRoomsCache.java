@@ -0,0 +1,134 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.CacheStatsDTO;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.enums.RoomType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of available-room search results keyed on (checkIn, checkOut, roomType).
+ * When nights of a room change, only the entries whose stay overlaps those nights are dropped.
+ * Only changes committed on this instance are seen, so entries also expire ttlSeconds after they were
+ * stored, which bounds how long a booking or cancellation made on another instance goes unnoticed.
+ * Entries and statistics are per instance.
+ */
+@Component
+public class AvailableRoomsCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Bumped on every invalidation so a search computed before it is not cached after it
+    private long generation = 0;
+
+    public AvailableRoomsCache(@Value("${booking.search.cache.max-entries:10000}") int maxEntries,
+                               @Value("${booking.search.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > AvailableRoomsCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized List<RoomDTO> get(LocalDate checkIn, LocalDate checkOut, RoomType roomType) {
+        Key key = new Key(checkIn, checkOut, roomType);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.storedAtNanos() >= ttlNanos) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry == null ? null : entry.rooms();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a result computed after generation() returned expectedGeneration, unless an invalidation happened since.
+     */
+    public synchronized void put(LocalDate checkIn, LocalDate checkOut, RoomType roomType,
+                                 List<RoomDTO> rooms, long expectedGeneration) {
+        if (generation == expectedGeneration) {
+            entries.put(new Key(checkIn, checkOut, roomType), new Entry(List.copyOf(rooms), System.nanoTime()));
+        }
+    }
+
+    // After RoomOccupancyIndex has applied the change, otherwise a search could cache the old nights again
+    @Order(2)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomOccupancyChanged(RoomOccupancyChangedEvent event) {
+        evictOverlapping(event.start(), event.end());
+    }
+
+    // Cached room lists carry a quote, new prices must not be served from the cache.
+    // After RoomRateCalendar has reloaded the rates, for the same reason as onRoomOccupancyChanged
+    @Order(2)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomRatesChanged(RoomRatesChangedEvent event) {
+        evictOverlapping(event.start(), event.end());
+    }
+
+    public synchronized void evictOverlapping(LocalDate start, LocalDate end) {
+        generation++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.checkIn().isBefore(end) && key.checkOut().isAfter(start)) {
+                keys.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Room added, updated or deleted: every cached room list may be stale
+    public synchronized void clear() {
+        generation++;
+        evictions.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        return CacheStatsDTO.builder()
+                .name("availableRooms")
+                .size(entries.size())
+                .maxSize(maxEntries)
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.get())
+                .hitRatio(total == 0 ? 0 : (double) hitCount / total)
+                .missRatio(total == 0 ? 0 : (double) missCount / total)
+                .build();
+    }
+
+    private record Key(LocalDate checkIn, LocalDate checkOut, RoomType roomType) {
+    }
+
+    private record Entry(List<RoomDTO> rooms, long storedAtNanos) {
+    }
+}
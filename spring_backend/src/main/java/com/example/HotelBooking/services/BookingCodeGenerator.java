@@ -1,21 +1,138 @@
 package com.example.HotelBooking.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
+/**
+ * Booking references that are unique by construction, so no database lookup is needed.
+ * Every reference packs (seconds since 2025, node id, sequence) into 51 bits. A keyed Feistel permutation of
+ * [0, 35^10) then scrambles the number before it is written in the 35-character alphabet, so consecutive
+ * references look unrelated to guests. The permutation is a bijection, distinct numbers give distinct codes.
+ * Nodes sharing a database must use distinct booking.reference.node-id values.
+ */
 @Service
 public class BookingCodeGenerator {
 
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ123456789";
     private static final int LENGTH = 10;
+    private static final long DOMAIN = pow(CHARACTERS.length(), LENGTH); // 35^10, about 2^51.3
+
+    // 31 bits of seconds (68 years) + 5 bits of node + 15 bits of sequence = 51 bits < 35^10
+    private static final long EPOCH_SECOND = 1735689600L; // 2025-01-01T00:00:00Z
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 15;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    // A busy second may borrow sequence numbers from the next ones, but never runs this far ahead of the clock
+    private static final long MAX_DRIFT_SECONDS = 2;
+
+    // Feistel network over 52 bits, two 26 bit halves
+    private static final int HALF_BITS = 26;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private final long nodeId;
+    private final long[] roundKeys;
+
+    private long lastSecond = -1;
+    private int sequence;
+
+    public BookingCodeGenerator(@Value("${booking.reference.node-id}") int nodeId,
+                                @Value("${booking.reference.secret:hotel-booking}") String secret) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("booking.reference.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.roundKeys = deriveRoundKeys(secret);
+    }
 
     public String generateBookingReference() {
-        StringBuilder sb = new StringBuilder(LENGTH);
-        Random random = new Random();
-        for (int i = 0; i < LENGTH; i++) {
-            sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        long value = encode(nextId());
+
+        char[] code = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            code[i] = CHARACTERS.charAt((int) (value % CHARACTERS.length()));
+            value /= CHARACTERS.length();
+        }
+        return new String(code);
+    }
+
+    private synchronized long nextId() {
+        long now = currentSecond();
+        if (now > lastSecond) {
+            lastSecond = now;
+            sequence = 0;
+        } else if (++sequence > MAX_SEQUENCE) {
+            lastSecond++;
+            sequence = 0;
+            while (lastSecond - currentSecond() > MAX_DRIFT_SECONDS) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for booking reference sequence", e);
+                }
+            }
+        }
+        return (lastSecond << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    // Cycle walking: the Feistel permutes [0, 2^52), repeat until the result is back inside [0, 35^10)
+    private long encode(long value) {
+        do {
+            value = feistel(value);
+        } while (value >= DOMAIN);
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ roundFunction(right, roundKeys[round]);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long roundFunction(long half, long key) {
+        long h = (half ^ key) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return h & HALF_MASK;
+    }
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8)));
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = digest.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000 - EPOCH_SECOND;
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
         }
-        return sb.toString();
+        return result;
     }
 }
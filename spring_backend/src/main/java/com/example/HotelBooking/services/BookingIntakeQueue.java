@@ -0,0 +1,160 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.BookingTicketDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.enums.BookingTicketStatus;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Queue for asynchronous booking intake. Every room id maps to one partition, and every partition is
+ * drained by a single worker thread, so bookings for the same room run one after the other while
+ * different rooms proceed in parallel. Callers get a ticket id back and poll it for the outcome.
+ * Single node and best effort: queued work and tickets live in this instance's memory only. A ticket can
+ * only be polled at /api/bookings/tickets on the instance that issued it, which needs sticky sessions behind
+ * a load balancer, and work still queued when the instance dies is lost, its ticket with it.
+ * Ordering per room holds within one instance, across instances the booking transaction still decides.
+ */
+@Component
+@Slf4j
+public class BookingIntakeQueue {
+
+    @Value("${booking.intake.workers:8}")
+    private int workers;
+
+    @Value("${booking.intake.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${booking.intake.ticket-retention-minutes:30}")
+    private long ticketRetentionMinutes;
+
+    private ThreadPoolExecutor[] partitions;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        partitions = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            String threadName = "booking-intake-" + i;
+            partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+        for (ThreadPoolExecutor partition : partitions) {
+            if (!partition.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Booking intake worker did not finish its queue before shutdown");
+            }
+        }
+    }
+
+    /**
+     * Queues the work on the partition of the room and returns the new ticket. The caller's security
+     * context is carried over to the worker, the work runs as the user who submitted it.
+     */
+    public BookingTicketDTO submit(Long roomId, Supplier<Response> work) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String owner = authentication.getName();
+
+        BookingTicketDTO queued = BookingTicketDTO.builder()
+                .ticketId(UUID.randomUUID().toString())
+                .status(BookingTicketStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        tickets.put(queued.getTicketId(), new Ticket(owner, queued));
+
+        try {
+            partitions[Math.floorMod(roomId.hashCode(), partitions.length)]
+                    .execute(() -> process(queued, authentication, work));
+        } catch (RejectedExecutionException e) {
+            tickets.remove(queued.getTicketId());
+            throw new InvalidBookingStateAndDateException("Too many bookings are being processed. Please try again in a moment.");
+        }
+
+        return queued;
+    }
+
+    /**
+     * Current state of a ticket. Tickets are only visible to the user who submitted them.
+     */
+    public BookingTicketDTO getTicket(String ticketId, String owner) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.owner().equals(owner)) {
+            throw new NotFoundException("Booking ticket not found");
+        }
+        return ticket.state();
+    }
+
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void purgeFinishedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ticketRetentionMinutes);
+        tickets.values().removeIf(ticket ->
+                ticket.state().getCompletedAt() != null && ticket.state().getCompletedAt().isBefore(cutoff));
+    }
+
+    private void process(BookingTicketDTO queued, Authentication authentication, Supplier<Response> work) {
+        String ticketId = queued.getTicketId();
+        update(ticketId, queued.toBuilder().status(BookingTicketStatus.PROCESSING).build());
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            Response response = work.get();
+            update(ticketId, queued.toBuilder()
+                    .status(BookingTicketStatus.COMPLETED)
+                    .message(response.getMessage())
+                    .booking(response.getBooking())
+                    .bookingReference(response.getBooking() != null ? response.getBooking().getBookingReference() : null)
+                    .paymentUrl(response.getPaymentUrl())
+                    .completedAt(LocalDateTime.now())
+                    .build());
+        } catch (InvalidBookingStateAndDateException | NotFoundException e) {
+            update(ticketId, queued.toBuilder()
+                    .status(BookingTicketStatus.REJECTED)
+                    .message(e.getMessage())
+                    .completedAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            log.error("Booking intake ticket {} failed", ticketId, e);
+            update(ticketId, queued.toBuilder()
+                    .status(BookingTicketStatus.FAILED)
+                    .message(e.getMessage())
+                    .completedAt(LocalDateTime.now())
+                    .build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void update(String ticketId, BookingTicketDTO state) {
+        tickets.computeIfPresent(ticketId, (id, ticket) -> new Ticket(ticket.owner(), state));
+    }
+
+    private record Ticket(String owner, BookingTicketDTO state) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of createBooking, published through /actuator/metrics:
+ * booking.create (outcome, reason) - whole request, reason is the rejection reason or "none"
+ * booking.create.stage (stage) - each step of the pipeline
+ * booking.create.rejections (reason) - rejected requests
+ * booking.create.retries (cause, isolation) - transactions retried after a lock conflict
+ * booking.create.deadlocks - retries caused by a deadlock
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public Attempt start() {
+        return new Attempt(Timer.start(meterRegistry));
+    }
+
+    public void recordRetry(String cause, String isolation) {
+        Counter.builder("booking.create.retries")
+                .description("createBooking transactions retried after a lock conflict or a duplicate booking reference")
+                .tag("cause", cause)
+                .tag("isolation", isolation)
+                .register(meterRegistry)
+                .increment();
+        if ("deadlock".equals(cause)) {
+            Counter.builder("booking.create.deadlocks")
+                    .description("createBooking transactions chosen as deadlock victim")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Timing of one createBooking request. Not thread safe, used by the thread handling the request.
+     */
+    public final class Attempt {
+
+        private final Timer.Sample sample;
+
+        // Innermost stage that threw, used as the reason of rejections thrown without one
+        private String failedStage;
+        private String rejectionReason;
+
+        private Attempt(Timer.Sample sample) {
+            this.sample = sample;
+        }
+
+        public <T> T stage(String name, Supplier<T> action) {
+            Timer timer = Timer.builder("booking.create.stage")
+                    .description("Time spent in each step of createBooking")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            try {
+                return timer.record(action);
+            } catch (RuntimeException e) {
+                if (failedStage == null) failedStage = name;
+                throw e;
+            }
+        }
+
+        public void stage(String name, Runnable action) {
+            stage(name, () -> {
+                action.run();
+                return null;
+            });
+        }
+
+        /**
+         * The exception to throw for a validation failure, counted under the given reason.
+         */
+        public InvalidBookingStateAndDateException reject(String reason, String message) {
+            rejectionReason = reason;
+            return new InvalidBookingStateAndDateException(message);
+        }
+
+        // A retried transaction starts over
+        public void reset() {
+            failedStage = null;
+            rejectionReason = null;
+        }
+
+        public void created() {
+            stop("created", "none");
+        }
+
+        public void rejected() {
+            String reason = rejectionReason != null ? rejectionReason : failedStage != null ? failedStage : "unknown";
+            Counter.builder("booking.create.rejections")
+                    .description("createBooking requests rejected by validation")
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+            stop("rejected", reason);
+        }
+
+        public void notFound() {
+            stop("not_found", "none");
+        }
+
+        public void failed() {
+            stop("error", "none");
+        }
+
+        private void stop(String outcome, String reason) {
+            sample.stop(Timer.builder("booking.create")
+                    .description("Time to create a booking")
+                    .tag("outcome", outcome)
+                    .tag("reason", reason)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.HotelBooking.services;
 
 import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.GroupBookingDTO;
 import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.dtos.RoomHoldDTO;
 import com.example.HotelBooking.dtos.BookingStatusResponse;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -11,8 +13,14 @@ public interface BookingService {
 
     Response getAllBookings();
     Response createBooking(BookingDTO bookingDTO);
+    Response submitBooking(BookingDTO bookingDTO);
+    Response getBookingTicket(String ticketId);
+    Response createGroupBooking(GroupBookingDTO groupBookingDTO);
     Response findBookingByReference(String  bookingReference);
+    Response getBookingHistory(String bookingReference, int page, int size);
     Response updateBooking(BookingDTO bookingDTO);
     BookingStatusResponse checkBookingStatus(String token);
     Response cancelBooking(String bookingReference);
+    Response placeHold(RoomHoldDTO roomHoldDTO);
+    Response releaseHold(String holdId);
 }
@@ -0,0 +1,58 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Adds the BookingStatus values missing from the booking_status columns on MySQL. Hibernate creates them as
+ * ENUM('BOOKED', ...) and ddl-auto=update never alters an existing column, so writing a newer status such as
+ * NO_SHOW would fail with a truncation error. Runs at every start and changes nothing once the columns
+ * list every value.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BookingStatusColumnMigration implements ApplicationRunner {
+
+    private static final List<String> TABLES = List.of("bookings", "bookings_history");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) return;
+
+        String enumType = Arrays.stream(BookingStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(",", "ENUM(", ")"));
+
+        for (String table : TABLES) {
+            List<Map<String, Object>> columns = jdbcTemplate.queryForList("""
+                    SELECT COLUMN_TYPE, IS_NULLABLE
+                    FROM information_schema.COLUMNS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'booking_status'
+                    """, table);
+            if (columns.isEmpty()) continue;
+
+            String columnType = String.valueOf(columns.get(0).get("COLUMN_TYPE"));
+            if (!columnType.toLowerCase().startsWith("enum(") || columnType.equalsIgnoreCase(enumType)) continue;
+
+            String nullable = "YES".equals(columns.get(0).get("IS_NULLABLE")) ? "NULL" : "NOT NULL";
+            jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY booking_status " + enumType + " " + nullable);
+            log.info("Changed {}.booking_status from {} to {}", table, columnType, enumType);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nightly date-driven status changes that used to wait for an admin calling updateBooking:
+ * CHECKED_IN bookings whose check-out day has passed become CHECKED_OUT, BOOKED bookings whose check-in day
+ * passed without a check-in become NO_SHOW and their nights are released.
+ * Each transition walks its (booking_status, date) index in keyset chunks of booking.transitions.chunk-size,
+ * one transaction and one UPDATE per chunk. Counted in booking.transitions (transition).
+ * Runs on the node holding the booking-transitions lease.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BookingTransitionEngine {
+
+    // Before any booking date, start of the keyset walks
+    private static final LocalDate KEYSET_START = LocalDate.of(2000, 1, 1);
+
+    // Shorter than a day
+    private static final Duration TRANSITIONS_LEASE = Duration.ofHours(1);
+
+    private final BookingRepository bookingRepository;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final JobLeaseManager jobLeaseManager;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${booking.transitions.chunk-size:500}")
+    private int chunkSize;
+
+    // Days after the check-in date a BOOKED booking still waits for its guest, 1 keeps a late arrival on the
+    // check-in night from being marked a no-show by the run just after midnight
+    @Value("${booking.transitions.no-show-grace-days:1}")
+    private int noShowGraceDays;
+
+    @Scheduled(cron = "${booking.transitions.cron:0 15 0 * * *}")
+    public void runTransitions() {
+        try {
+            jobLeaseManager.runExclusively("booking-transitions", TRANSITIONS_LEASE, this::applyTransitions);
+        } catch (Exception e) {
+            log.error("Error applying booking transitions", e);
+        }
+    }
+
+    private void applyTransitions() {
+        LocalDate today = LocalDate.now();
+
+        int checkedOut = transition("check_out", BookingStatus.CHECKED_IN, BookingStatus.CHECKED_OUT,
+                after -> bookingRepository.findCheckOutBeforeAfterCursor(BookingStatus.CHECKED_IN, today,
+                        after.lastDate(), after.lastId(), PageRequest.of(0, chunkSize)),
+                3);
+
+        int noShows = transition("no_show", BookingStatus.BOOKED, BookingStatus.NO_SHOW,
+                after -> bookingRepository.findCheckInBeforeAfterCursor(BookingStatus.BOOKED,
+                        today.minusDays(noShowGraceDays), after.lastDate(), after.lastId(), PageRequest.of(0, chunkSize)),
+                2);
+
+        log.info("Booking transitions: {} checked out, {} no-shows", checkedOut, noShows);
+    }
+
+    /**
+     * Moves every booking returned by the page query from one status to the other, chunk by chunk.
+     * Rows are (id, roomId, checkInDate, checkOutDate), dateColumn is the index of the keyset date.
+     */
+    private int transition(String name, BookingStatus from, BookingStatus to,
+                           PageQuery pageQuery, int dateColumn) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int total = 0;
+        Cursor cursor = new Cursor(0, 0, KEYSET_START, 0L);
+        do {
+            Cursor after = cursor;
+            long startNanos = System.nanoTime();
+            cursor = transaction.execute(status -> {
+                List<Object[]> rows = pageQuery.next(after);
+                if (rows.isEmpty()) return new Cursor(0, 0, after.lastDate(), after.lastId());
+
+                List<Long> bookingIds = new ArrayList<>(rows.size());
+                List<RoomReservation> reservations = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    bookingIds.add((Long) row[0]);
+                    reservations.add(new RoomReservation((Long) row[1], (LocalDate) row[2], (LocalDate) row[3], (Long) row[0]));
+                }
+
+                // NO_SHOW gives the room back, a check-out has no night left to release
+                if (to == BookingStatus.NO_SHOW) {
+                    roomAvailabilityService.releaseBookings(reservations);
+                }
+                int updated = bookingRepository.updateBookingStatusByIds(bookingIds, from, to);
+
+                Object[] last = rows.get(rows.size() - 1);
+                return new Cursor(rows.size(), updated, (LocalDate) last[dateColumn], (Long) last[0]);
+            });
+            if (cursor.rows() == 0) break;
+
+            total += cursor.updated();
+            log.info("Transition {} chunk: {} bookings in {} ms", name, cursor.updated(), (System.nanoTime() - startNanos) / 1_000_000);
+        } while (cursor.rows() == chunkSize);
+
+        Counter.builder("booking.transitions")
+                .description("Bookings moved by the nightly transition engine")
+                .tag("transition", name)
+                .register(meterRegistry)
+                .increment(total);
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        List<Object[]> next(Cursor after);
+    }
+
+    // Rows read and updated by a chunk and the (date, id) of its last booking, where the next chunk starts
+    private record Cursor(int rows, int updated, LocalDate lastDate, Long lastId) {
+    }
+}
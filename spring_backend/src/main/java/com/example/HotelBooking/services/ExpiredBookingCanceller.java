@@ -0,0 +1,48 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cancels unpaid bookings whose payment window is over, shared by the expiry cron and the timer wheel.
+ * Rows are (id, roomId, checkInDate, checkOutDate, userId, ...) as returned, already locked, by the
+ * BookingRepository expiry queries. Must run inside the transaction that locked them.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExpiredBookingCanceller {
+
+    private final BookingRepository bookingRepository;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final PendingBookingCounter pendingBookingCounter;
+
+    // Releases the nights and flips the statuses with two set-based statements
+    public int cancel(List<Object[]> rows) {
+        if (rows.isEmpty()) return 0;
+
+        List<Long> bookingIds = new ArrayList<>(rows.size());
+        List<RoomReservation> reservations = new ArrayList<>(rows.size());
+        // Sorted by user id, so two cancelling nodes update the users rows in the same order
+        Map<Long, Long> expiredPerUser = new TreeMap<>();
+        for (Object[] row : rows) {
+            Long bookingId = (Long) row[0];
+            bookingIds.add(bookingId);
+            reservations.add(new RoomReservation((Long) row[1], (LocalDate) row[2], (LocalDate) row[3], bookingId));
+            expiredPerUser.merge((Long) row[4], 1L, Long::sum);
+        }
+
+        // Release room dates TRƯỚC khi update status
+        roomAvailabilityService.releaseBookings(reservations);
+        expiredPerUser.forEach(pendingBookingCounter::release);
+        return bookingRepository.updateStatusesByIds(bookingIds, PaymentStatus.CANCELLED, BookingStatus.CANCELLED);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.repositories.BookingHistoryRepository;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.GuestHistoryRepository;
+import com.example.HotelBooking.repositories.GuestRepository;
+import com.example.HotelBooking.repositories.PaymentLinkRepository;
+import com.example.HotelBooking.repositories.RoomAvailabilityHistoryRepository;
+import com.example.HotelBooking.repositories.RoomAvailabilityRepository;
+import com.example.HotelBooking.repositories.RoomReservationIntervalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Nightly move of rows older than booking.archive.horizon-days out of the hot tables, so the overlap queries
+ * on room_availability and bookings only see recent and future stays:
+ * room_availability nights before the horizon go to room_availability_history, CHECKED_OUT, CANCELLED and
+ * NO_SHOW bookings that checked out before it go to bookings_history with their guests.
+ * Each chunk copies with INSERT ... SELECT and deletes in one transaction, so a row is never in both tables
+ * or in neither. Runs on the node holding the archive-history lease.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HistoryArchiver {
+
+    // Shorter than a day, long enough for a backlog of chunks
+    private static final Duration ARCHIVE_LEASE = Duration.ofHours(6);
+
+    private static final List<BookingStatus> ARCHIVED_STATUSES = List.of(
+            BookingStatus.CHECKED_OUT, BookingStatus.CANCELLED, BookingStatus.NO_SHOW);
+
+    private final RoomAvailabilityRepository roomAvailabilityRepository;
+    private final RoomAvailabilityHistoryRepository roomAvailabilityHistoryRepository;
+    private final RoomReservationIntervalRepository intervalRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+    private final GuestRepository guestRepository;
+    private final GuestHistoryRepository guestHistoryRepository;
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final JobLeaseManager jobLeaseManager;
+    private final PendingBookingCounter pendingBookingCounter;
+    private final PlatformTransactionManager transactionManager;
+
+    // Rows older than this many days are archived
+    @Value("${booking.archive.horizon-days:180}")
+    private int horizonDays;
+
+    // Rows moved per transaction
+    @Value("${booking.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${booking.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        try {
+            jobLeaseManager.runExclusively("archive-history", ARCHIVE_LEASE, this::archiveBeforeHorizon);
+        } catch (Exception e) {
+            log.error("Error archiving history", e);
+        }
+    }
+
+    private void archiveBeforeHorizon() {
+        // Never today or later, those nights are still read by availability checks
+        LocalDate cutoff = LocalDate.now().minusDays(Math.max(horizonDays, 1));
+        LocalDateTime archivedAt = LocalDateTime.now();
+
+        int nights = moveInChunks("room_availability", pageable -> {
+            List<Long> ids = roomAvailabilityRepository.findIdsBefore(cutoff, pageable);
+            if (ids.isEmpty()) return 0;
+            roomAvailabilityHistoryRepository.copyFromRoomAvailability(ids, archivedAt);
+            roomAvailabilityRepository.deleteAllByIdInBatch(ids);
+            return ids.size();
+        });
+
+        int bookings = moveInChunks("bookings", pageable -> {
+            List<Long> ids = bookingRepository.findIdsToArchive(ARCHIVED_STATUSES, cutoff, pageable);
+            if (ids.isEmpty()) return 0;
+            bookingHistoryRepository.copyFromBookings(ids, archivedAt);
+            guestHistoryRepository.copyFromGuests(ids);
+            roomAvailabilityHistoryRepository.copyFromRoomAvailabilityByBookingIds(ids, archivedAt);
+
+            // Rows still referencing the bookings, intervals are not archived as bookings_history has the stay
+            guestRepository.deleteByBookingIds(ids);
+            roomAvailabilityRepository.deleteByBookingIds(ids);
+            intervalRepository.deleteByBookingIds(ids);
+            paymentLinkRepository.deleteByBookingIds(ids);
+            // Cancelled by an admin without touching the payment, still counted as pending by their user
+            for (Object[] row : bookingRepository.countPendingPerUserByIds(ids)) {
+                pendingBookingCounter.release((Long) row[0], (Long) row[1]);
+            }
+            bookingRepository.deleteAllByIdInBatch(ids);
+            return ids.size();
+        });
+
+        log.info("Archived {} room nights and {} bookings before {}", nights, bookings, cutoff);
+    }
+
+    // Runs the chunk, each in its own transaction, until one moves less than a full chunk
+    private int moveInChunks(String table, Function<PageRequest, Integer> chunk) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        PageRequest pageable = PageRequest.of(0, chunkSize);
+
+        int total = 0;
+        int chunks = 0;
+        Integer moved;
+        do {
+            long startNanos = System.nanoTime();
+            moved = transaction.execute(status -> chunk.apply(pageable));
+            if (moved == null || moved == 0) break;
+
+            chunks++;
+            total += moved;
+            log.info("Archive chunk {} of {}: moved {} rows in {} ms",
+                    chunks, table, moved, (System.nanoTime() - startNanos) / 1_000_000);
+        } while (moved == chunkSize);
+        return total;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling: the first request with a key runs, its response is kept for a while, and
+ * retries with the same key get that response back without running the action again. Keys are scoped to
+ * the caller and the endpoint. Business rejections are replayed too, unexpected errors are not stored so
+ * the client can retry them.
+ * Entries live in this instance's memory only: behind a load balancer a retry reaching another instance
+ * runs the action again, and a restart forgets every key. Duplicate payments are still stopped by the
+ * transaction id checks of the payment services, the store only saves the client a second booking.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${booking.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${booking.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    // A retry that arrives while the first request is still running waits this long for its outcome
+    @Value("${booking.idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public <T> ResponseEntity<T> execute(String key, String endpoint, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidBookingStateAndDateException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = caller() + "|" + endpoint + "|" + key;
+        byte[] fingerprint = fingerprint(request);
+
+        if (entries.size() >= maxEntries) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                log.warn("Idempotency store is full, running request without {}", HEADER);
+                return action.get();
+            }
+        }
+
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>(), Instant.now().plusSeconds(ttlMinutes * 60));
+        Entry existing = entries.putIfAbsent(scopedKey, entry);
+        if (existing != null && existing.isExpired(Instant.now())) {
+            entries.remove(scopedKey, existing);
+            existing = entries.putIfAbsent(scopedKey, entry);
+        }
+        if (existing != null) {
+            return replay(existing, fingerprint);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            entry.outcome().complete(response);
+            return response;
+        } catch (InvalidBookingStateAndDateException | NotFoundException e) {
+            entry.outcome().complete(e);
+            throw e;
+        } catch (Throwable e) {
+            // Unexpected failures are not remembered, a retry runs the request again. Errors too, otherwise
+            // retries would wait on an outcome that never comes
+            entries.remove(scopedKey, entry);
+            entry.outcome().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        entries.values().removeIf(entry -> entry.isExpired(now) && entry.outcome().isDone());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry existing, byte[] fingerprint) {
+        if (!Arrays.equals(existing.fingerprint(), fingerprint)) {
+            throw new InvalidBookingStateAndDateException(HEADER + " was already used for a different request");
+        }
+
+        Object outcome;
+        try {
+            outcome = existing.outcome().get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new InvalidBookingStateAndDateException("A request with this " + HEADER + " is still being processed");
+        } catch (ExecutionException e) {
+            throw new InvalidBookingStateAndDateException("The original request failed, please retry with a new " + HEADER);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+
+        if (outcome instanceof RuntimeException rejection) {
+            throw rejection;
+        }
+
+        ResponseEntity<T> stored = (ResponseEntity<T>) outcome;
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(headers -> {
+                    headers.addAll(stored.getHeaders());
+                    headers.set(REPLAYED_HEADER, "true");
+                })
+                .body(stored.getBody());
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    // Same key with another body is a client bug, not a retry
+    private byte[] fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return MessageDigest.getInstance("SHA-256").digest(json);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            return String.valueOf(request).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // outcome completes with the ResponseEntity or the business exception of the first request
+    private record Entry(byte[] fingerprint, CompletableFuture<Object> outcome, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
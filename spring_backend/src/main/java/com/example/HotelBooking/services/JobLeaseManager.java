@@ -0,0 +1,165 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.JobLeaseDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.JobLease;
+import com.example.HotelBooking.enums.JobRunStatus;
+import com.example.HotelBooking.repositories.JobLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a scheduled job run on one backend instance per tick. Every node tries to move the job's
+ * job_leases row forward with a conditional UPDATE, the one that changes the row runs the job and the
+ * others skip it. The lease is not released after the run: it has to be shorter than the job's period
+ * and outlive the clock skew between nodes, so a node firing a moment later still finds it held.
+ * A node dying mid-run blocks the job only until the lease expires.
+ * Runs are timed under scheduled.job (job, outcome), skipped ticks are counted in scheduled.job.skipped (job).
+ */
+@Component
+@Slf4j
+public class JobLeaseManager {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+
+    // Jobs whose row is known to exist
+    private final Set<String> knownJobs = ConcurrentHashMap.newKeySet();
+
+    public JobLeaseManager(JobLeaseRepository jobLeaseRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${booking.jobs.node-name:}") String nodeName) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // Lease statements commit on their own, whatever the caller is doing
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.owner = nodeName.isBlank() ? defaultNodeName() : nodeName;
+    }
+
+    /**
+     * Runs the job if this node gets its lease, returns false when another node holds it.
+     * Exceptions of the job are recorded on the lease and rethrown.
+     */
+    public boolean runExclusively(String jobName, Duration leaseDuration, Runnable job) {
+        if (!tryAcquire(jobName, leaseDuration)) {
+            log.debug("Skipping job {}, its lease is held by another node", jobName);
+            Counter.builder("scheduled.job.skipped")
+                    .description("Scheduled job ticks skipped because another node held the lease")
+                    .tag("job", jobName)
+                    .register(meterRegistry)
+                    .increment();
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        JobRunStatus status = JobRunStatus.FAILED;
+        String error = null;
+        try {
+            job.run();
+            status = JobRunStatus.SUCCEEDED;
+            return true;
+        } catch (RuntimeException e) {
+            error = truncate(String.valueOf(e.getMessage()));
+            throw e;
+        } finally {
+            long durationNanos = System.nanoTime() - startNanos;
+            Timer.builder("scheduled.job")
+                    .description("Run time of scheduled jobs on the node holding their lease")
+                    .tag("job", jobName)
+                    .tag("outcome", status == JobRunStatus.SUCCEEDED ? "succeeded" : "failed")
+                    .register(meterRegistry)
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+            if (durationNanos > leaseDuration.toNanos()) {
+                log.warn("Job {} ran for {} ms, longer than its {} lease", jobName, durationNanos / 1_000_000, leaseDuration);
+            }
+            recordRun(jobName, durationNanos / 1_000_000, status, error);
+        }
+    }
+
+    public Response getJobLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<JobLeaseDTO> leases = jobLeaseRepository.findAllByOrderByJobNameAsc().stream()
+                .map(lease -> toDTO(lease, now))
+                .toList();
+
+        return Response.builder()
+                .status(200)
+                .message("success, node " + owner)
+                .jobLeases(leases)
+                .build();
+    }
+
+    private boolean tryAcquire(String jobName, Duration leaseDuration) {
+        try {
+            if (knownJobs.add(jobName)) {
+                transaction.executeWithoutResult(status -> jobLeaseRepository.insertIfAbsent(jobName));
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Integer updated = transaction.execute(status ->
+                    jobLeaseRepository.tryAcquire(jobName, owner, now, now.plus(leaseDuration)));
+            return updated != null && updated == 1;
+        } catch (Exception e) {
+            knownJobs.remove(jobName);
+            log.error("Could not acquire the lease of job {}, skipping this run", jobName, e);
+            return false;
+        }
+    }
+
+    private void recordRun(String jobName, long durationMs, JobRunStatus status, String error) {
+        try {
+            transaction.executeWithoutResult(tx -> jobLeaseRepository.recordRun(
+                    jobName, owner, LocalDateTime.now(), durationMs, status, error));
+        } catch (Exception e) {
+            log.warn("Could not record the run of job {}", jobName, e);
+        }
+    }
+
+    private static JobLeaseDTO toDTO(JobLease lease, LocalDateTime now) {
+        return JobLeaseDTO.builder()
+                .jobName(lease.getJobName())
+                .owner(lease.getOwner())
+                .leaseUntil(lease.getLeaseUntil())
+                .leaseHeld(lease.getLeaseUntil() != null && lease.getLeaseUntil().isAfter(now))
+                .lastStartedAt(lease.getLastStartedAt())
+                .lastFinishedAt(lease.getLastFinishedAt())
+                .lastDurationMs(lease.getLastDurationMs())
+                .lastStatus(lease.getLastStatus())
+                .lastError(lease.getLastError())
+                .build();
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    // host-pid-random, unique even for two instances on one host
+    private static String defaultNodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
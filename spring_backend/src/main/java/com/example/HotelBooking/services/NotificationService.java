@@ -5,4 +5,14 @@ import com.example.HotelBooking.dtos.NotificationDTO;
 public interface NotificationService {
 
     void sendEmail(NotificationDTO notificationDTO);
+
+    /**
+     * Writes the email to the outbox in the caller's transaction, OutboxDispatcher sends it after the commit.
+     */
+    void enqueueEmail(NotificationDTO notificationDTO);
+
+    /**
+     * Sends the email on the calling thread and records it in notifications.
+     */
+    void deliverEmail(NotificationDTO notificationDTO);
 }
@@ -0,0 +1,138 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.NotificationDTO;
+import com.example.HotelBooking.entities.OutboxEvent;
+import com.example.HotelBooking.enums.OutboxStatus;
+import com.example.HotelBooking.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox rows in batches. Runs right after a transaction that wrote to the outbox commits, and on a
+ * fixed delay to pick up anything left behind by a failure or a restart. Every instance drains the same table,
+ * so an event is claimed with a conditional UPDATE of its claimed_until before it is sent and the instances
+ * that lose the race skip it. The claim of an instance that dies mid-send lapses after CLAIM_DURATION.
+ * A failed send keeps the event claimed for an exponential backoff, so an SMTP outage is retried over
+ * minutes instead of using up every attempt in the next few polls.
+ * Delivery is at least once: an email sent just before a crash can be sent again.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    // Longer than sending one email, including SMTP timeouts
+    private static final Duration CLAIM_DURATION = Duration.ofMinutes(5);
+
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${booking.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${booking.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    // Wait before the first retry of a failed event, doubled at each further failure
+    @Value("${booking.outbox.retry-backoff-seconds:60}")
+    private long retryBackoffSeconds;
+
+    // One drain at a time per instance, a trigger during a drain is picked up by its next batch
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOutboxEventsAdded(OutboxEventsAddedEvent event) {
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        drain();
+    }
+
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            List<OutboxEvent> batch;
+            int claimed;
+            do {
+                batch = outboxEventRepository.findUnclaimed(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                claimed = 0;
+                for (OutboxEvent event : batch) {
+                    if (!claim(transaction, event)) continue;
+                    claimed++;
+                    dispatch(event);
+                    outboxEventRepository.save(event);
+                }
+            } while (batch.size() == batchSize && claimed > 0);
+        } catch (Exception e) {
+            log.error("Error draining outbox", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private boolean claim(TransactionTemplate transaction, OutboxEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transaction.execute(status ->
+                outboxEventRepository.claim(event.getId(), now, now.plus(CLAIM_DURATION)));
+        return updated != null && updated == 1;
+    }
+
+    // A failed event stays claimed until its backoff is over, then any instance may retry it
+    private void dispatch(OutboxEvent event) {
+        try {
+            NotificationDTO notificationDTO = objectMapper.readValue(event.getPayload(), NotificationDTO.class);
+            notificationService.deliverEmail(notificationDTO);
+            event.setStatus(OutboxStatus.SENT);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setClaimedUntil(null);
+        } catch (Exception e) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(abbreviate(e.getMessage()));
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                event.setProcessedAt(LocalDateTime.now());
+                event.setClaimedUntil(null);
+                log.error("Giving up on outbox event {} for booking {} after {} attempts",
+                        event.getId(), event.getBookingReference(), event.getAttempts(), e);
+            } else {
+                Duration backoff = retryBackoff(event.getAttempts());
+                event.setClaimedUntil(LocalDateTime.now().plus(backoff));
+                log.warn("Outbox event {} failed (attempt {}), retrying in {}s: {}",
+                        event.getId(), event.getAttempts(), backoff.toSeconds(), e.getMessage());
+            }
+        }
+    }
+
+    // retryBackoffSeconds, then twice as long after each further failure, up to MAX_RETRY_BACKOFF
+    private Duration retryBackoff(int attempts) {
+        Duration backoff = Duration.ofSeconds(retryBackoffSeconds).multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_RETRY_BACKOFF) > 0 ? MAX_RETRY_BACKOFF : backoff;
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null) return null;
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
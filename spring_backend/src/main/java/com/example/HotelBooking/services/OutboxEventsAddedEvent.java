@@ -0,0 +1,7 @@
+package com.example.HotelBooking.services;
+
+/**
+ * Published when outbox rows are written, so the dispatcher can drain them right after the commit.
+ */
+public record OutboxEventsAddedEvent() {
+}
@@ -0,0 +1,159 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.PaymentLinkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cancels an unpaid booking and releases its room within a tick of its payment link expiring.
+ * Deadlines sit in a hashed timer wheel: bucket = deadline tick % wheel size, so registering is O(1) and each
+ * tick only looks at one bucket. Entries whose deadline is a later turn of the wheel stay in the bucket.
+ * The wheel is in memory only, it is refilled from payment_links on startup and the expiry cron catches
+ * anything it misses. Paid or cancelled bookings are simply skipped when their deadline comes.
+ */
+@Component
+@Slf4j
+public class PaymentExpiryWheel {
+
+    // Failed cancellations are tried again after this delay
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final BookingRepository bookingRepository;
+    private final ExpiredBookingCanceller expiredBookingCanceller;
+    private final TransactionTemplate transaction;
+
+    private final long tickMillis;
+    private final int chunkSize;
+    private final List<Deadline>[] buckets;
+    private final long startMillis = System.currentTimeMillis();
+
+    // Next tick to process, guarded by this
+    private long currentTick = 0;
+    private int size = 0;
+
+    @SuppressWarnings("unchecked")
+    public PaymentExpiryWheel(PaymentLinkRepository paymentLinkRepository,
+                              BookingRepository bookingRepository,
+                              ExpiredBookingCanceller expiredBookingCanceller,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${booking.expiry.wheel-tick-ms:1000}") long tickMillis,
+                              @Value("${booking.expiry.wheel-size:512}") int wheelSize,
+                              @Value("${booking.expiry.chunk-size:500}") int chunkSize) {
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.bookingRepository = bookingRepository;
+        this.expiredBookingCanceller = expiredBookingCanceller;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.tickMillis = tickMillis;
+        this.chunkSize = chunkSize;
+        this.buckets = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            List<Object[]> links = paymentLinkRepository.findExpiriesByBookingPaymentStatus(PaymentStatus.PENDING);
+            for (Object[] link : links) {
+                if (link[1] != null) {
+                    add((Long) link[0], toMillis((LocalDateTime) link[1]));
+                }
+            }
+            log.info("Payment expiry wheel loaded {} pending payment links", links.size());
+        } catch (Exception e) {
+            log.error("Failed to load pending payment links, the expiry cron will cancel them", e);
+        }
+    }
+
+    /**
+     * Cancels the booking, and the rest of its group, when expiresAt passes unless it was paid by then.
+     * Inside a transaction the deadline is only registered once it commits.
+     */
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        long deadline = toMillis(expiresAt);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(bookingId, deadline);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(bookingId, deadline);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${booking.expiry.wheel-tick-ms:1000}")
+    public void tick() {
+        List<Long> due = advance(System.currentTimeMillis());
+
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            try {
+                Integer cancelled = transaction.execute(status -> expiredBookingCanceller.cancel(
+                        bookingRepository.findWithGroupByIdsAndStatus(chunk, PaymentStatus.PENDING)));
+                if (cancelled != null && cancelled > 0) {
+                    log.info("Cancelled {} bookings with expired payment links", cancelled);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to cancel {} bookings with expired payment links, retrying later", chunk.size(), e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                chunk.forEach(bookingId -> add(bookingId, retryAt));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized void add(Long bookingId, long deadlineMillis) {
+        // A deadline already in the past fires on the next tick
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis), currentTick);
+        buckets[(int) (deadlineTick % buckets.length)].add(new Deadline(bookingId, deadlineTick));
+        size++;
+    }
+
+    // Booking ids of every deadline up to now, the wheel catches up on ticks missed during a pause
+    private synchronized List<Long> advance(long nowMillis) {
+        List<Long> due = new ArrayList<>();
+        long lastTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        for (; currentTick <= lastTick; currentTick++) {
+            Iterator<Deadline> deadlines = buckets[(int) (currentTick % buckets.length)].iterator();
+            while (deadlines.hasNext()) {
+                Deadline deadline = deadlines.next();
+                if (deadline.tick() <= currentTick) {
+                    due.add(deadline.bookingId());
+                    deadlines.remove();
+                    size--;
+                }
+            }
+        }
+        return due;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Deadline(Long bookingId, long tick) {
+    }
+}
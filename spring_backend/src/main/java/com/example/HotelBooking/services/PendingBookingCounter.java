@@ -0,0 +1,57 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * PENDING bookings per user, kept in users.pending_bookings for the anti-spam limit of createBooking and
+ * createGroupBooking. New bookings take their slots with one conditional UPDATE of the user's row, so the
+ * limit holds across instances without counting or locking bookings, and every statement moving a booking
+ * out of PENDING gives its slot back. Users created before the column start at 0, releases never take it
+ * below 0, so their count is exact again once their older bookings are paid or expired.
+ * Every method must run in the transaction that changes the bookings.
+ */
+@Component
+@RequiredArgsConstructor
+public class PendingBookingCounter {
+
+    public static final int MAX_PENDING_BOOKINGS = 3;
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+
+    // False when the user already has MAX_PENDING_BOOKINGS pending bookings
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(User user, int bookings) {
+        return userRepository.reservePendingBookings(user.getId(), bookings, MAX_PENDING_BOOKINGS) == 1;
+    }
+
+    // A booking put back to PENDING by an admin, not subject to the limit
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Long userId, long bookings) {
+        if (bookings > 0) userRepository.addPendingBookings(userId, bookings);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long userId, long bookings) {
+        if (bookings > 0) userRepository.releasePendingBookings(userId, bookings);
+    }
+
+    /**
+     * Call before a payment moves the booking, and the rest of its group, out of PENDING.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releasePaid(Booking booking) {
+        long settled = booking.getGroupReference() == null
+                ? (booking.getPaymentStatus() == PaymentStatus.PENDING ? 1 : 0)
+                : bookingRepository.countPendingByGroupReference(booking.getGroupReference());
+        release(booking.getUser().getId(), settled);
+    }
+}
@@ -4,9 +4,38 @@ import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.Room;
 
 import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface RoomAvailabilityService {
     boolean isAvailable(Long roomId, LocalDate start, LocalDate end);
     void bookRoomDates(Room room, LocalDate start, LocalDate end, Booking booking);
     void releaseRoomDates(Room room, LocalDate start, LocalDate end);
+
+    /**
+     * Releases every night of the given bookings with one statement keyed on the booking ids.
+     */
+    void releaseBookings(List<RoomReservation> reservations);
+
+    /**
+     * Reserves several stays with one conflict query and batched inserts. Throws on the first conflict,
+     * the caller's transaction then rolls back the whole batch.
+     */
+    void bookRoomDates(List<RoomReservation> reservations);
+
+    /**
+     * Booked nights in [start, end) per room, bit i = night start + i. Rooms without bookings are absent.
+     * A null roomIds means every room.
+     */
+    Map<Long, BitSet> findBookedNights(Collection<Long> roomIds, LocalDate start, LocalDate end);
+
+    /**
+     * True if bookRoomDates relies on a unique constraint, so two concurrent reservations of the same
+     * night fail on insert even without SERIALIZABLE isolation.
+     */
+    default boolean detectsConflictsOnInsert() {
+        return false;
+    }
 }
@@ -0,0 +1,240 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Short-lived checkout holds on (room, nights). A hold is placed when the guest picks a room and consumed
+ * by createBooking, so guests racing for the same room are turned away here instead of at the end of the
+ * booking transaction. Holds are kept in memory only and striped by room id: holds on different rooms
+ * never contend for the same lock. The per-user limit is taken as a slot in holdIdsByHolder before the room
+ * is locked, so concurrent requests of one user cannot all pass the count.
+ */
+@Component
+@Slf4j
+public class RoomHoldRegistry {
+
+    private static final int STRIPES = 64;
+
+    @Value("${booking.holds.ttl-minutes:5}")
+    private long ttlMinutes;
+
+    @Value("${booking.holds.max-per-user:3}")
+    private int maxHoldsPerUser;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Hold> holdsById = new ConcurrentHashMap<>();
+
+    // Live and just placed hold ids of each user, only changed inside compute so counting and adding are one step
+    private final Map<String, Set<String>> holdIdsByHolder = new ConcurrentHashMap<>();
+
+    public RoomHoldRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Holds the nights [start, end) of the room for the user. A previous hold of the same user that overlaps
+     * is replaced, an overlapping hold of anyone else is a conflict.
+     */
+    public Hold place(Long roomId, LocalDate start, LocalDate end, String holder) {
+        Instant now = Instant.now();
+        Hold hold = new Hold(UUID.randomUUID().toString(), roomId, start, end, holder, now.plusSeconds(ttlMinutes * 60));
+        reserveSlot(hold, now);
+
+        Stripe stripe = stripeFor(roomId);
+        stripe.lock.lock();
+        boolean placed = false;
+        try {
+            List<Hold> roomHolds = stripe.holdsByRoom.computeIfAbsent(roomId, id -> new ArrayList<>());
+            Iterator<Hold> iterator = roomHolds.iterator();
+            while (iterator.hasNext()) {
+                Hold existing = iterator.next();
+                if (existing.isExpired(now)) {
+                    iterator.remove();
+                    holdsById.remove(existing.holdId());
+                    releaseSlot(existing);
+                } else if (existing.overlaps(start, end)) {
+                    if (!existing.holder().equals(holder)) {
+                        throw new InvalidBookingStateAndDateException("Room is currently held by another guest for the selected dates");
+                    }
+                    iterator.remove();
+                    holdsById.remove(existing.holdId());
+                    releaseSlot(existing);
+                }
+            }
+            roomHolds.add(hold);
+            holdsById.put(hold.holdId(), hold);
+            placed = true;
+        } finally {
+            if (!placed) releaseSlot(hold);
+            stripe.lock.unlock();
+        }
+
+        return hold;
+    }
+
+    /**
+     * Checks that the hold belongs to the user and covers exactly this booking. The hold is only removed by
+     * release() once the booking is saved, so a failed booking attempt can be retried with the same hold.
+     */
+    public void verify(String holdId, Long roomId, LocalDate start, LocalDate end, String holder) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null || hold.isExpired(Instant.now()) || !hold.holder().equals(holder)) {
+            throw new InvalidBookingStateAndDateException("Your hold on this room has expired. Please select the room again.");
+        }
+        if (!hold.roomId().equals(roomId) || !hold.start().equals(start) || !hold.end().equals(end)) {
+            throw new InvalidBookingStateAndDateException("Hold does not match the selected room and dates");
+        }
+    }
+
+    /**
+     * True if someone other than the holder has a live hold overlapping [start, end). A null holder matches nobody.
+     */
+    public boolean isHeldByOther(Long roomId, LocalDate start, LocalDate end, String holder) {
+        Stripe stripe = stripeFor(roomId);
+        Instant now = Instant.now();
+        stripe.lock.lock();
+        try {
+            List<Hold> roomHolds = stripe.holdsByRoom.get(roomId);
+            if (roomHolds == null) return false;
+            for (Hold hold : roomHolds) {
+                if (!hold.isExpired(now) && hold.overlaps(start, end) && !hold.holder().equals(holder)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Ids of the given rooms that have a live hold overlapping [start, end).
+     */
+    public Set<Long> heldRoomIds(Collection<Long> roomIds, LocalDate start, LocalDate end) {
+        Set<Long> held = new HashSet<>();
+        if (holdsById.isEmpty()) return held;
+
+        for (Long roomId : roomIds) {
+            if (isHeldByOther(roomId, start, end, null)) {
+                held.add(roomId);
+            }
+        }
+        return held;
+    }
+
+    public void release(String holdId, String holder) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null || !hold.holder().equals(holder)) {
+            throw new NotFoundException("Hold not found");
+        }
+        remove(hold);
+    }
+
+    /**
+     * Drops the hold after its booking has been saved. Unknown or already expired holds are ignored.
+     */
+    public void consume(String holdId) {
+        Hold hold = holdsById.get(holdId);
+        if (hold != null) {
+            remove(hold);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        for (Hold hold : holdsById.values()) {
+            if (hold.isExpired(now)) {
+                remove(hold);
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.debug("Purged {} expired room holds", purged);
+        }
+    }
+
+    private void remove(Hold hold) {
+        Stripe stripe = stripeFor(hold.roomId());
+        stripe.lock.lock();
+        try {
+            List<Hold> roomHolds = stripe.holdsByRoom.get(hold.roomId());
+            if (roomHolds != null) {
+                roomHolds.remove(hold);
+                if (roomHolds.isEmpty()) {
+                    stripe.holdsByRoom.remove(hold.roomId());
+                }
+            }
+            holdsById.remove(hold.holdId());
+            releaseSlot(hold);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Counts the user's live holds and adds the new one in one step, expired ones give their slot back
+    private void reserveSlot(Hold hold, Instant now) {
+        holdIdsByHolder.compute(hold.holder(), (holder, holdIds) -> {
+            Set<String> ids = holdIds != null ? holdIds : new HashSet<>();
+            ids.removeIf(id -> {
+                Hold existing = holdsById.get(id);
+                // Unknown ids are slots of holds still being placed
+                return existing != null && existing.isExpired(now);
+            });
+            if (ids.size() >= maxHoldsPerUser) {
+                throw new InvalidBookingStateAndDateException("You have too many rooms on hold. Please complete or release them first.");
+            }
+            ids.add(hold.holdId());
+            return ids;
+        });
+    }
+
+    private void releaseSlot(Hold hold) {
+        holdIdsByHolder.computeIfPresent(hold.holder(), (holder, holdIds) -> {
+            holdIds.remove(hold.holdId());
+            return holdIds.isEmpty() ? null : holdIds;
+        });
+    }
+
+    private Stripe stripeFor(Long roomId) {
+        return stripes[Math.floorMod(roomId.hashCode(), STRIPES)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, List<Hold>> holdsByRoom = new HashMap<>();
+    }
+
+    public record Hold(String holdId, Long roomId, LocalDate start, LocalDate end, String holder, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        boolean overlaps(LocalDate otherStart, LocalDate otherEnd) {
+            return start.isBefore(otherEnd) && otherStart.isBefore(end);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.HotelBooking.services;
+
+import java.time.LocalDate;
+
+/**
+ * Published when nights [start, end) of a room are reserved or released.
+ * Listeners run after the surrounding transaction commits.
+ */
+public record RoomOccupancyChangedEvent(Long roomId, LocalDate start, LocalDate end, boolean booked) {
+}
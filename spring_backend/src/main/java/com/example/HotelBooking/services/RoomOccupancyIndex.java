@@ -0,0 +1,357 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.repositories.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the reserved nights: one bitset per room, bit i = night (origin + i) is booked.
+ * Also keeps per-(RoomType, night) sold counters, changed under the same lock as the bitsets.
+ * Covers a rolling horizon starting today; searches outside of it fall back to the database.
+ * Only changes committed on this instance reach the index between rebuilds, so a night released on another
+ * instance stays booked here: a booked night is a hint to confirm with confirmBookedRooms before turning a
+ * guest away. A night booked on another instance looks free here, the booking transaction rejects it.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RoomOccupancyIndex {
+
+    // Booking is limited to 1 year in advance, keep some slack for the daily roll
+    private static final int HORIZON_DAYS = 400;
+
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final RoomRepository roomRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, BitSet> occupancy = new HashMap<>();
+    private LocalDate origin = LocalDate.now();
+    private boolean ready = false;
+
+    private Map<Long, RoomType> roomTypes = new HashMap<>();
+    private Map<RoomType, Integer> roomsByType = new EnumMap<>(RoomType.class);
+    private Map<RoomType, int[]> soldByType = new EnumMap<>(RoomType.class);
+
+    // Changes that happen while a rebuild is loading are replayed on top of the snapshot
+    private List<Mutation> pendingMutations = null;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "0 5 0 * * *") // Every day at 00:05, move the horizon forward
+    public void rollHorizon() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        LocalDate newOrigin = LocalDate.now();
+
+        lock.writeLock().lock();
+        try {
+            pendingMutations = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, BitSet> snapshot;
+        Map<Long, RoomType> snapshotRoomTypes;
+        try {
+            snapshot = new HashMap<>(roomAvailabilityService.findBookedNights(
+                    null, newOrigin, newOrigin.plusDays(HORIZON_DAYS)));
+            snapshotRoomTypes = loadRoomTypes();
+        } catch (Exception e) {
+            log.error("Failed to build room occupancy index, searches will use the database", e);
+            lock.writeLock().lock();
+            try {
+                pendingMutations = null;
+                ready = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Mutation mutation : pendingMutations) {
+                apply(snapshot, newOrigin, mutation, null);
+            }
+            pendingMutations = null;
+            occupancy = snapshot;
+            origin = newOrigin;
+            roomTypes = snapshotRoomTypes;
+            recountRoomTypes();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Room occupancy index built for {} rooms from {}", snapshot.size(), newOrigin);
+    }
+
+    /**
+     * Reloads room types after a room is added, updated or deleted. Bookings are unchanged.
+     */
+    public void refreshRooms() {
+        Map<Long, RoomType> newRoomTypes = loadRoomTypes();
+
+        lock.writeLock().lock();
+        try {
+            roomTypes = newRoomTypes;
+            recountRoomTypes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * True if the index can answer for the nights [start, end).
+     */
+    public boolean covers(LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            return ready
+                    && !start.isBefore(origin)
+                    && !end.isAfter(origin.plusDays(HORIZON_DAYS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * True if no night in [start, end) is booked. Caller must check covers() first.
+     */
+    public boolean isFree(Long roomId, LocalDate start, LocalDate end) {
+        return firstBookedNight(roomId, start, end) == null;
+    }
+
+    /**
+     * First booked night in [start, end), or null if the whole range is free.
+     */
+    public LocalDate firstBookedNight(Long roomId, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            BitSet nights = occupancy.get(roomId);
+            if (nights == null) return null;
+
+            int from = Math.max(0, offset(origin, start));
+            int to = offset(origin, end);
+            int first = nights.nextSetBit(from);
+            return (first >= 0 && first < to) ? origin.plusDays(first) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Booked nights of [start, end) as a new bitset, bit i = night start + i. Caller must check covers() first.
+     */
+    public BitSet bookedNights(Long roomId, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            BitSet nights = occupancy.get(roomId);
+            if (nights == null) return new BitSet();
+
+            return nights.get(Math.max(0, offset(origin, start)), offset(origin, end));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rooms of roomIds with a booked night in [start, end). Rooms free in the index are answered from memory,
+     * the others are confirmed with one findBookedNights query. Caller must check covers() first.
+     */
+    public Set<Long> confirmBookedRooms(Collection<Long> roomIds, LocalDate start, LocalDate end) {
+        List<Long> candidates = roomIds.stream()
+                .filter(roomId -> !isFree(roomId, start, end))
+                .toList();
+        if (candidates.isEmpty()) return Set.of();
+
+        Map<Long, BitSet> booked = roomAvailabilityService.findBookedNights(candidates, start, end);
+        reconcile(candidates, booked, start, end);
+
+        Set<Long> bookedRooms = new HashSet<>();
+        for (Long roomId : candidates) {
+            BitSet nights = booked.get(roomId);
+            if (nights != null && !nights.isEmpty()) {
+                bookedRooms.add(roomId);
+            }
+        }
+        return bookedRooms;
+    }
+
+    /**
+     * Clears the nights of [start, end) the index has booked but the database, read by the caller into booked
+     * (bit i = night start + i), does not: releases made on another instance. A booking of this instance
+     * committed after that read can be cleared too, which only makes the index answer free until the
+     * next rebuild. Caller must check covers() first.
+     */
+    public void reconcile(Collection<Long> roomIds, Map<Long, BitSet> booked, LocalDate start, LocalDate end) {
+        List<Mutation> releases = new ArrayList<>();
+        for (Long roomId : roomIds) {
+            BitSet stale = bookedNights(roomId, start, end);
+            BitSet nights = booked.get(roomId);
+            if (nights != null) stale.andNot(nights);
+
+            for (int from = stale.nextSetBit(0); from >= 0; from = stale.nextSetBit(from)) {
+                int to = stale.nextClearBit(from);
+                releases.add(new Mutation(roomId, start.plusDays(from), start.plusDays(to), false));
+                from = to;
+            }
+        }
+        if (releases.isEmpty()) return;
+
+        log.info("Cleared {} stale booked ranges from the occupancy index", releases.size());
+        for (Mutation release : releases) {
+            record(release);
+        }
+    }
+
+    /**
+     * Fewest free rooms of the type over the nights [start, end). This is an upper bound of the rooms
+     * bookable for the whole stay, 0 means the type is sold out. Caller must check covers() first.
+     */
+    public int roomsLeft(RoomType type, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            int total = roomsByType.getOrDefault(type, 0);
+            int[] sold = soldByType.get(type);
+            if (sold == null) return total;
+
+            int maxSold = 0;
+            for (int day = Math.max(0, offset(origin, start)); day < offset(origin, end); day++) {
+                maxSold = Math.max(maxSold, sold[day]);
+            }
+            return Math.max(0, total - maxSold);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Only committed reservations reach the index, a rolled back booking never happened.
+    // Runs before AvailableRoomsCache evicts, so a search missing the cache already reads the new nights
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomOccupancyChanged(RoomOccupancyChangedEvent event) {
+        if (event.booked()) {
+            markBooked(event.roomId(), event.start(), event.end());
+        } else {
+            markReleased(event.roomId(), event.start(), event.end());
+        }
+    }
+
+    public void markBooked(Long roomId, LocalDate start, LocalDate end) {
+        record(new Mutation(roomId, start, end, true));
+    }
+
+    public void markReleased(Long roomId, LocalDate start, LocalDate end) {
+        record(new Mutation(roomId, start, end, false));
+    }
+
+    private void record(Mutation mutation) {
+        lock.writeLock().lock();
+        try {
+            if (pendingMutations != null) {
+                pendingMutations.add(mutation);
+            }
+            if (ready) {
+                apply(occupancy, origin, mutation, soldCounter(mutation.roomId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, RoomType> loadRoomTypes() {
+        Map<Long, RoomType> types = new HashMap<>();
+        for (Room room : roomRepository.findAll()) {
+            types.put(room.getId(), room.getType());
+        }
+        return types;
+    }
+
+    // Must hold the write lock
+    private void recountRoomTypes() {
+        Map<RoomType, Integer> rooms = new EnumMap<>(RoomType.class);
+        Map<RoomType, int[]> sold = new EnumMap<>(RoomType.class);
+
+        for (Map.Entry<Long, RoomType> entry : roomTypes.entrySet()) {
+            RoomType type = entry.getValue();
+            rooms.merge(type, 1, Integer::sum);
+            int[] counter = sold.computeIfAbsent(type, t -> new int[HORIZON_DAYS]);
+
+            BitSet nights = occupancy.get(entry.getKey());
+            if (nights == null) continue;
+            for (int day = nights.nextSetBit(0); day >= 0 && day < HORIZON_DAYS; day = nights.nextSetBit(day + 1)) {
+                counter[day]++;
+            }
+        }
+
+        roomsByType = rooms;
+        soldByType = sold;
+    }
+
+    // Must hold the write lock. Null when the room is unknown, e.g. added after the last refresh
+    private int[] soldCounter(Long roomId) {
+        RoomType type = roomTypes.get(roomId);
+        return type == null ? null : soldByType.get(type);
+    }
+
+    private static void apply(Map<Long, BitSet> target, LocalDate origin, Mutation mutation, int[] sold) {
+        // Clip to the horizon, nights outside of it are answered by the database
+        int from = Math.max(0, offset(origin, mutation.start()));
+        int to = Math.min(HORIZON_DAYS, offset(origin, mutation.end()));
+        if (from >= to) return;
+
+        BitSet nights = mutation.booked()
+                ? target.computeIfAbsent(mutation.roomId(), id -> new BitSet(HORIZON_DAYS))
+                : target.get(mutation.roomId());
+        if (nights == null) return;
+
+        if (sold != null) {
+            // Count only the nights that actually flip, releasing a free night must not change the counter
+            for (int day = from; day < to; day++) {
+                if (nights.get(day) != mutation.booked()) {
+                    sold[day] += mutation.booked() ? 1 : -1;
+                }
+            }
+        }
+
+        if (mutation.booked()) {
+            nights.set(from, to);
+        } else {
+            nights.clear(from, to);
+        }
+    }
+
+    private static int offset(LocalDate origin, LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(origin, date);
+    }
+
+    private record Mutation(Long roomId, LocalDate start, LocalDate end, boolean booked) {
+    }
+}
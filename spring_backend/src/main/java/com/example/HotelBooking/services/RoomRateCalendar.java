@@ -0,0 +1,155 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.repositories.RoomRateRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the nightly prices: per room, a cumulative sum in cents over a rolling horizon starting
+ * today, sums[i] = price of nights [origin, origin + i). The price of any stay is sums[end] - sums[start].
+ * Nights without a room_rates row cost the room's pricePerNight. Stays outside of the horizon are priced
+ * from the database.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RoomRateCalendar {
+
+    // Same horizon as the occupancy index
+    private static final int HORIZON_DAYS = 400;
+
+    private final RoomRepository roomRepository;
+    private final RoomRateRepository roomRateRepository;
+
+    // Replaced as a whole, readers never lock
+    private volatile Snapshot snapshot = null;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "0 5 0 * * *") // Every day at 00:05, move the horizon forward
+    public void rollHorizon() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        LocalDate origin = LocalDate.now();
+        try {
+            List<Room> rooms = roomRepository.findAll();
+            List<Object[]> rates = roomRateRepository.findRatesBetween(origin, origin.plusDays(HORIZON_DAYS));
+            snapshot = new Snapshot(origin, cumulativeSums(rooms, rates, origin));
+            log.info("Room rate calendar built for {} rooms from {}", rooms.size(), origin);
+        } catch (Exception e) {
+            log.error("Failed to build room rate calendar, prices will be read from the database", e);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Reloads the rooms after their base price or rates changed. Rooms that no longer exist are dropped.
+     */
+    public synchronized void refreshRooms(Collection<Long> roomIds) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            return;
+        }
+
+        List<Room> rooms = roomRepository.findAllById(roomIds);
+        List<Object[]> rates = roomRateRepository.findRatesForRooms(
+                roomIds, current.origin(), current.origin().plusDays(HORIZON_DAYS));
+
+        Map<Long, long[]> sums = new HashMap<>(current.sums());
+        sums.keySet().removeAll(roomIds);
+        sums.putAll(cumulativeSums(rooms, rates, current.origin()));
+        snapshot = new Snapshot(current.origin(), sums);
+    }
+
+    // Runs before AvailableRoomsCache evicts, so a search missing the cache is already quoted at the new rates
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomRatesChanged(RoomRatesChangedEvent event) {
+        refreshRooms(event.roomIds());
+    }
+
+    /**
+     * Total price of the nights [start, end) of the room.
+     */
+    public BigDecimal quote(Room room, LocalDate start, LocalDate end) {
+        Snapshot current = snapshot;
+        if (current != null
+                && !start.isBefore(current.origin())
+                && !end.isAfter(current.origin().plusDays(HORIZON_DAYS))) {
+            long[] sums = current.sums().get(room.getId());
+            if (sums != null) {
+                int from = (int) ChronoUnit.DAYS.between(current.origin(), start);
+                int to = (int) ChronoUnit.DAYS.between(current.origin(), end);
+                return BigDecimal.valueOf(sums[to] - sums[from], 2);
+            }
+        }
+        return quoteFromDatabase(room, start, end);
+    }
+
+    // Outside of the horizon, or a room created since the last build
+    private BigDecimal quoteFromDatabase(Room room, LocalDate start, LocalDate end) {
+        int nights = (int) ChronoUnit.DAYS.between(start, end);
+        long[] prices = new long[nights];
+        Arrays.fill(prices, toCents(room.getPricePerNight()));
+        for (Object[] rate : roomRateRepository.findRatesForRooms(List.of(room.getId()), start, end)) {
+            prices[(int) ChronoUnit.DAYS.between(start, (LocalDate) rate[1])] = toCents((BigDecimal) rate[2]);
+        }
+        return BigDecimal.valueOf(Arrays.stream(prices).sum(), 2);
+    }
+
+    private static Map<Long, long[]> cumulativeSums(List<Room> rooms, List<Object[]> rates, LocalDate origin) {
+        Map<Long, long[]> prices = new HashMap<>();
+        for (Room room : rooms) {
+            long[] nightly = new long[HORIZON_DAYS];
+            Arrays.fill(nightly, toCents(room.getPricePerNight()));
+            prices.put(room.getId(), nightly);
+        }
+        for (Object[] rate : rates) {
+            long[] nightly = prices.get((Long) rate[0]);
+            if (nightly != null) {
+                nightly[(int) ChronoUnit.DAYS.between(origin, (LocalDate) rate[1])] = toCents((BigDecimal) rate[2]);
+            }
+        }
+
+        Map<Long, long[]> sums = new HashMap<>();
+        prices.forEach((roomId, nightly) -> {
+            long[] cumulative = new long[HORIZON_DAYS + 1];
+            for (int i = 0; i < HORIZON_DAYS; i++) {
+                cumulative[i + 1] = cumulative[i] + nightly[i];
+            }
+            sums.put(roomId, cumulative);
+        });
+        return sums;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price == null ? 0 : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record Snapshot(LocalDate origin, Map<Long, long[]> sums) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.HotelBooking.services;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Published when the rates of some rooms changed for nights within [start, end).
+ */
+public record RoomRatesChangedEvent(Set<Long> roomIds, LocalDate start, LocalDate end) {
+}
@@ -0,0 +1,9 @@
+package com.example.HotelBooking.services;
+
+import java.time.LocalDate;
+
+/**
+ * Nights [start, end) of a room reserved for a booking, used to reserve several stays in one call.
+ */
+public record RoomReservation(Long roomId, LocalDate start, LocalDate end, Long bookingId) {
+}
@@ -0,0 +1,152 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.RoomReservationInterval;
+import com.example.HotelBooking.enums.JobRunStatus;
+import com.example.HotelBooking.repositories.JobLeaseRepository;
+import com.example.HotelBooking.repositories.RoomAvailabilityRepository;
+import com.example.HotelBooking.repositories.RoomReservationIntervalRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * One-off copy of room_availability into room_reservation_intervals when interval storage is enabled.
+ * Consecutive booked nights of the same room and booking become one interval. The copy runs under the
+ * job_leases row of the migration, so a single instance imports, and commits together with a SUCCEEDED
+ * status on that row, which every later start checks. Instances starting meanwhile wait for it.
+ * Bookings made in interval mode are not written to room_availability, so switching back needs its own migration.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.availability.storage", havingValue = "interval")
+public class RoomReservationIntervalMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String JOB_NAME = "migrate-room-reservation-intervals";
+    private static final Duration MIGRATION_LEASE = Duration.ofHours(1);
+    private static final long WAIT_MS = 5000;
+
+    private final RoomAvailabilityRepository roomAvailabilityRepository;
+    private final RoomReservationIntervalRepository intervalRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final JobLeaseManager jobLeaseManager;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // A node dying mid-copy rolls it back, the others take over once its lease expires
+        while (!isMigrated()) {
+            if (!jobLeaseManager.runExclusively(JOB_NAME, MIGRATION_LEASE,
+                    () -> transaction.executeWithoutResult(status -> migrate()))) {
+                log.info("Waiting for another instance to migrate room_availability into reservation intervals");
+                Thread.sleep(WAIT_MS);
+            }
+        }
+    }
+
+    private boolean isMigrated() {
+        return jobLeaseRepository.findById(JOB_NAME)
+                .map(lease -> lease.getLastStatus() == JobRunStatus.SUCCEEDED)
+                .orElse(false);
+    }
+
+    private void migrate() {
+        // Checked again under the lease, a node may have finished between isMigrated and the lease
+        if (isMigrated()) return;
+
+        // Imported by a version that had no marker yet, only the marker is missing
+        if (intervalRepository.count() > 0) {
+            jobLeaseRepository.markSucceeded(JOB_NAME, LocalDateTime.now());
+            return;
+        }
+
+        long nights = 0;
+        long intervals = 0;
+        List<RoomReservationInterval> batch = new ArrayList<>();
+
+        try (Stream<Object[]> rows = roomAvailabilityRepository.streamBookedNightsForMigration()) {
+            Iterator<Object[]> iterator = rows.iterator();
+
+            Long roomId = null;
+            Long bookingId = null;
+            LocalDate start = null;
+            LocalDate end = null;
+
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Long rowRoomId = (Long) row[0];
+                Long rowBookingId = (Long) row[1];
+                LocalDate date = (LocalDate) row[2];
+                nights++;
+
+                boolean extendsCurrent = start != null
+                        && rowRoomId.equals(roomId)
+                        && Objects.equals(rowBookingId, bookingId)
+                        && date.equals(end);
+
+                if (extendsCurrent) {
+                    end = date.plusDays(1);
+                    continue;
+                }
+
+                if (start != null) {
+                    batch.add(toInterval(roomId, bookingId, start, end));
+                    intervals++;
+                    if (batch.size() >= BATCH_SIZE) flush(batch);
+                }
+
+                roomId = rowRoomId;
+                bookingId = rowBookingId;
+                start = date;
+                end = date.plusDays(1);
+            }
+
+            if (start != null) {
+                batch.add(toInterval(roomId, bookingId, start, end));
+                intervals++;
+            }
+            flush(batch);
+        }
+
+        // Commits with the intervals, a crash before the lease records the run can't import them twice
+        jobLeaseRepository.markSucceeded(JOB_NAME, LocalDateTime.now());
+        log.info("Migrated {} room_availability nights into {} reservation intervals", nights, intervals);
+    }
+
+    private RoomReservationInterval toInterval(Long roomId, Long bookingId, LocalDate start, LocalDate end) {
+        return RoomReservationInterval.builder()
+                .room(entityManager.getReference(Room.class, roomId))
+                .booking(bookingId == null ? null : entityManager.getReference(Booking.class, bookingId))
+                .startDate(start)
+                .endDate(end)
+                .build();
+    }
+
+    private void flush(List<RoomReservationInterval> batch) {
+        intervalRepository.saveAll(batch);
+        entityManager.flush();
+        entityManager.clear();
+        batch.clear();
+    }
+}
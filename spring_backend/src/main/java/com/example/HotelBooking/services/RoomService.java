@@ -1,9 +1,12 @@
 package com.example.HotelBooking.services;
 
+import com.example.HotelBooking.dtos.AvailabilityCheckRequest;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomRateDTO;
 import com.example.HotelBooking.enums.RoomType;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -16,6 +19,12 @@ public interface RoomService {
     Response getRoomById(Long id);
     Response deleteRoom(Long id);
     Response getAvailableRooms(LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType);
+    Response getFlexibleAvailableRooms(LocalDate windowStart, LocalDate windowEnd, int nights, RoomType roomType);
+    Response getAvailableRoomsCacheStats();
+    Response uploadRoomRates(List<RoomRateDTO> rates);
     List<RoomType> getAllRoomTypes();
     Response searchRoom(String input);
+    Response checkAvailabilityBatch(List<AvailabilityCheckRequest> requests);
+    Response getRoomNightHistory(Long roomId, LocalDate startDate, LocalDate endDate);
+    StreamingResponseBody getOccupancyGrid(LocalDate startDate, int days);
 }
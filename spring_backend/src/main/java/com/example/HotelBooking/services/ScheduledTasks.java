@@ -1,15 +1,18 @@
 package com.example.HotelBooking.services;
 
-import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.enums.PaymentStatus;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.PaymentLinkRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,43 +21,81 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ScheduledTasks {
 
+    // Before any createdAt, start of the keyset walk
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    // Shorter than the 10 minute cron so the next tick is free to take it
+    private static final Duration EXPIRY_LEASE = Duration.ofMinutes(5);
+
     private final PaymentLinkRepository paymentLinkRepository;
     private final BookingRepository bookingRepository;
-    private final RoomAvailabilityService roomAvailabilityService;
+    private final ExpiredBookingCanceller expiredBookingCanceller;
+    private final PlatformTransactionManager transactionManager;
+    private final JobLeaseManager jobLeaseManager;
+
+    // Unpaid bookings are cancelled by PaymentExpiryWheel when their link expires, this only catches leftovers
+    @Value("${booking.expiry.safety-net-minutes:30}")
+    private long safetyNetMinutes;
+
+    // Bookings cancelled per transaction, bounds how long rows of bookings and room_availability stay locked
+    @Value("${booking.expiry.chunk-size:500}")
+    private int chunkSize;
 
     /**
      * THÊM: Auto-cancel bookings với payment pending quá lâu (30 phút)
+     * Safety net behind PaymentExpiryWheel. Runs in chunks of booking.expiry.chunk-size, each its own
+     * transaction, walking (payment_status, created_at, id) so no chunk reads what an earlier one already handled.
+     * Only the node holding the expire-pending-bookings lease runs it.
      */
     @Scheduled(cron = "0 */10 * * * *") // Every 10 minutes
-    @Transactional
     public void cancelExpiredPendingBookings() {
         try {
-            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(30);
-
-            List<Booking> expiredBookings = bookingRepository.findExpiredPendingBookings(
-                    PaymentStatus.PENDING,
-                    cutoff
-            );
-
-            for (Booking booking : expiredBookings) {
-                // Release room dates TRƯỚC khi update status
-                roomAvailabilityService.releaseRoomDates(
-                        booking.getRoom(),
-                        booking.getCheckInDate(),
-                        booking.getCheckOutDate()
-                );
-
-                // Update statuses
-                booking.setPaymentStatus(PaymentStatus.CANCELLED);
-                booking.setBookingStatus(com.example.HotelBooking.enums.BookingStatus.CANCELLED);
-            }
-
-            if (!expiredBookings.isEmpty()) {
-                bookingRepository.saveAll(expiredBookings);
-                log.info("Auto-cancelled {} expired pending bookings", expiredBookings.size());
-            }
+            jobLeaseManager.runExclusively("expire-pending-bookings", EXPIRY_LEASE, this::cancelExpiredPendingBookingsInChunks);
         } catch (Exception e) {
             log.error("Error auto-cancelling expired bookings", e);
         }
     }
+
+    private void cancelExpiredPendingBookingsInChunks() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(safetyNetMinutes);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long startNanos = System.nanoTime();
+        int chunks = 0;
+        int cancelled = 0;
+        Chunk chunk = new Chunk(0, KEYSET_START, 0L);
+        do {
+            Chunk after = chunk;
+            long chunkStartNanos = System.nanoTime();
+            chunk = transaction.execute(status -> cancelExpiredChunk(cutoff, after));
+            if (chunk.rows() == 0) break;
+
+            chunks++;
+            cancelled += chunk.rows();
+            log.info("Expiry chunk {}: cancelled {} pending bookings in {} ms",
+                    chunks, chunk.rows(), (System.nanoTime() - chunkStartNanos) / 1_000_000);
+        } while (chunk.rows() == chunkSize);
+
+        if (cancelled > 0) {
+            log.info("Auto-cancelled {} expired pending bookings in {} chunks, {} ms",
+                    cancelled, chunks, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private Chunk cancelExpiredChunk(LocalDateTime cutoff, Chunk after) {
+        List<Object[]> rows = bookingRepository.findCreatedBeforeAfterCursor(
+                PaymentStatus.PENDING, cutoff, after.lastCreatedAt(), after.lastId(), PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return new Chunk(0, after.lastCreatedAt(), after.lastId());
+        }
+
+        expiredBookingCanceller.cancel(rows);
+
+        Object[] last = rows.get(rows.size() - 1);
+        return new Chunk(rows.size(), (LocalDateTime) last[5], (Long) last[0]);
+    }
+
+    // Size of a chunk and the (createdAt, id) of its last booking, where the next chunk starts
+    private record Chunk(int rows, LocalDateTime lastCreatedAt, Long lastId) {
+    }
 }
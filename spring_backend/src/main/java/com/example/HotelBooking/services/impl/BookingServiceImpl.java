@@ -7,26 +7,44 @@ import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.PaymentStatus;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.payments.PaymentTokenService;
+import com.example.HotelBooking.repositories.BookingBatchRepository;
+import com.example.HotelBooking.repositories.BookingHistoryRepository;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.PaymentLinkRepository;
 import com.example.HotelBooking.repositories.RoomRepository;
 import com.example.HotelBooking.services.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -41,6 +59,31 @@ public class BookingServiceImpl implements BookingService {
     private final ModelMapper modelMapper;
     private final UserService userService;
     private final BookingCodeGenerator bookingCodeGenerator;
+    private final PlatformTransactionManager transactionManager;
+    private final RoomHoldRegistry roomHoldRegistry;
+    private final RoomOccupancyIndex roomOccupancyIndex;
+    private final BookingIntakeQueue bookingIntakeQueue;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final PaymentTokenService paymentTokenService;
+    private final PendingBookingCounter pendingBookingCounter;
+    private final RoomRateCalendar roomRateCalendar;
+    private final BookingMetrics bookingMetrics;
+    private final PaymentExpiryWheel paymentExpiryWheel;
+    private final BookingHistoryRepository bookingHistoryRepository;
+
+    private static final int MAX_GROUP_ROOMS = 40;
+
+    // serializable = lock-based, optimistic = READ COMMITTED + unique (room_id, date) detects conflicts
+    @Value("${booking.reservation.mode:serializable}")
+    private String reservationMode;
+
+    // Retries of a createBooking transaction that lost a deadlock or lock wait, or drew a taken booking reference
+    @Value("${booking.reservation.max-retries:3}")
+    private int maxRetries;
+
+    // true = createBooking needs a hold from /api/bookings/holds, false = holds are optional
+    @Value("${booking.holds.required:false}")
+    private boolean holdsRequired;
 
     @Override
     public Response getAllBookings() {
@@ -60,69 +103,296 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
     public Response createBooking(BookingDTO bookingDTO) {
+        return createBooking(bookingDTO, isOptimisticReservation()
+                ? TransactionDefinition.ISOLATION_READ_COMMITTED
+                : TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    @Override
+    public Response submitBooking(BookingDTO bookingDTO) {
+        if (bookingDTO.getRoom() == null || bookingDTO.getRoom().getId() == null) {
+            throw new InvalidBookingStateAndDateException("Room is required");
+        }
+        if (bookingDTO.getCheckInDate() == null || bookingDTO.getCheckOutDate() == null) {
+            throw new InvalidBookingStateAndDateException("Check in and check out dates are required");
+        }
+        if (bookingDTO.getCheckInDate().isBefore(LocalDate.now())) {
+            throw new InvalidBookingStateAndDateException("Check in date cannot be before today");
+        }
+        if (!bookingDTO.getCheckOutDate().isAfter(bookingDTO.getCheckInDate())) {
+            throw new InvalidBookingStateAndDateException("Check out date must be after check in date");
+        }
+        checkHold(bookingDTO);
+
+        // Bookings of one room are processed one at a time by the intake worker, the unique (room_id, date)
+        // key only has to catch the rare race with a synchronous booking or another instance
+        int isolation = roomAvailabilityService.detectsConflictsOnInsert()
+                ? TransactionDefinition.ISOLATION_READ_COMMITTED
+                : TransactionDefinition.ISOLATION_SERIALIZABLE;
+        BookingTicketDTO ticket = bookingIntakeQueue.submit(bookingDTO.getRoom().getId(),
+                () -> createBooking(bookingDTO, isolation));
+
+        return Response.builder()
+                .status(202)
+                .message("Booking request accepted")
+                .ticket(ticket)
+                .build();
+    }
+
+    @Override
+    public Response getBookingTicket(String ticketId) {
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .ticket(bookingIntakeQueue.getTicket(ticketId, owner))
+                .build();
+    }
+
+    private Response createBooking(BookingDTO bookingDTO, int isolation) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(isolation);
+
+        BookingMetrics.Attempt metrics = bookingMetrics.start();
         try {
-            User currentUser = userService.getCurrentLoggedInUser();
+            // Settle the race for the room in memory before opening the transaction
+            metrics.stage("hold_check", () -> checkHold(bookingDTO));
+
+            Response response = executeWithRetry(transaction,
+                    () -> metrics.stage("transaction", () -> transaction.execute(status -> doCreateBooking(bookingDTO, metrics))),
+                    metrics::reset);
+
+            if (bookingDTO.getHoldId() != null) {
+                roomHoldRegistry.consume(bookingDTO.getHoldId());
+            }
+            metrics.created();
+            return response;
+        } catch (InvalidBookingStateAndDateException e) {
+            metrics.rejected();
+            throw e;
+        } catch (NotFoundException e) {
+            metrics.notFound();
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.failed();
+            throw e;
+        }
+    }
+
+    /**
+     * Concurrent SERIALIZABLE bookings of the same nights can deadlock, the loser is run again. Shared by single
+     * and group bookings, attempt runs the transaction and beforeRetry resets what the failed run recorded.
+     */
+    private Response executeWithRetry(TransactionTemplate transaction, Supplier<Response> attempt, Runnable beforeRetry) {
+        String isolation = transaction.getIsolationLevel() == TransactionDefinition.ISOLATION_SERIALIZABLE
+                ? "serializable" : "read_committed";
+        for (int retry = 0; ; retry++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (retry >= maxRetries) {
+                    log.error("Booking creation still conflicting after {} retries", retry, e);
+                    throw new RuntimeException("Failed to create booking. Please try again later.");
+                }
+                String cause = lockConflictCause(e);
+                bookingMetrics.recordRetry(cause, isolation);
+                log.warn("Booking transaction failed with {} (attempt {}), retrying", cause, retry + 1);
+                beforeRetry.run();
+                sleepBeforeRetry(retry);
+            } catch (DataIntegrityViolationException e) {
+                if (!isDuplicateKey(e) || retry >= maxRetries) throw e;
+                bookingMetrics.recordRetry("duplicate_reference", isolation);
+                log.warn("Booking reference already taken (attempt {}), retrying with a new one", retry + 1);
+                beforeRetry.run();
+            }
+        }
+    }
+
+    /**
+     * Duplicate key on insert. Clashes on room nights are turned into InvalidBookingStateAndDateException inside
+     * the transaction, so the only unique key left is bookings.booking_reference: two instances started with the
+     * same booking.reference.node-id. A new reference is generated when the transaction is run again.
+     */
+    private static boolean isDuplicateKey(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                // MySQL 1062 ER_DUP_ENTRY, H2 23505 DUPLICATE_KEY_1
+                int code = sqlException.getErrorCode();
+                if (code == 1062 || code == 23505) return true;
+            }
+        }
+        return false;
+    }
+
+    private static String lockConflictCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                // MySQL 1213 ER_LOCK_DEADLOCK, 1205 ER_LOCK_WAIT_TIMEOUT, H2 40001 DEADLOCK_1
+                switch (sqlException.getErrorCode()) {
+                    case 1213, 40001: return "deadlock";
+                    case 1205: return "lock_timeout";
+                    default: break;
+                }
+            }
+        }
+        return "serialization";
+    }
+
+    // Random backoff so the transactions that conflicted do not collide again right away
+    private static void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to create booking. Please try again later.");
+        }
+    }
+
+    private void checkHold(BookingDTO bookingDTO) {
+        // Incomplete requests are rejected by the regular validation
+        if (bookingDTO.getRoom() == null || bookingDTO.getRoom().getId() == null
+                || bookingDTO.getCheckInDate() == null || bookingDTO.getCheckOutDate() == null) {
+            return;
+        }
+
+        String holder = SecurityContextHolder.getContext().getAuthentication().getName();
+        Long roomId = bookingDTO.getRoom().getId();
+
+        if (bookingDTO.getHoldId() != null) {
+            roomHoldRegistry.verify(bookingDTO.getHoldId(), roomId,
+                    bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate(), holder);
+        } else if (holdsRequired) {
+            throw new InvalidBookingStateAndDateException("Please select the room again, no hold was found for this booking");
+        } else if (roomHoldRegistry.isHeldByOther(roomId, bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate(), holder)) {
+            throw new InvalidBookingStateAndDateException("Room is currently held by another guest for the selected dates");
+        }
+    }
+
+    @Override
+    public Response placeHold(RoomHoldDTO roomHoldDTO) {
+        LocalDate checkInDate = roomHoldDTO.getCheckInDate();
+        LocalDate checkOutDate = roomHoldDTO.getCheckOutDate();
+
+        if (checkInDate.isBefore(LocalDate.now())) {
+            throw new InvalidBookingStateAndDateException("Check in date cannot be before today");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new InvalidBookingStateAndDateException("Check out date must be after check in date");
+        }
+        if (checkOutDate.isAfter(LocalDate.now().plusYears(1))) {
+            throw new InvalidBookingStateAndDateException("Cannot book more than 1 year in advance");
+        }
+        if (ChronoUnit.DAYS.between(checkInDate, checkOutDate) > 30) {
+            throw new InvalidBookingStateAndDateException("Maximum stay is 30 nights");
+        }
+
+        Long roomId = roomHoldDTO.getRoomId();
+        if (!roomRepository.existsById(roomId)) {
+            throw new NotFoundException("Room Not Found");
+        }
+
+        boolean isAvailable = roomOccupancyIndex.covers(checkInDate, checkOutDate)
+                ? roomOccupancyIndex.confirmBookedRooms(List.of(roomId), checkInDate, checkOutDate).isEmpty()
+                : roomAvailabilityService.isAvailable(roomId, checkInDate, checkOutDate);
+        if (!isAvailable) {
+            throw new InvalidBookingStateAndDateException("Room is not available for the selected date ranges");
+        }
+
+        String holder = SecurityContextHolder.getContext().getAuthentication().getName();
+        RoomHoldRegistry.Hold hold = roomHoldRegistry.place(roomId, checkInDate, checkOutDate, holder);
+
+        RoomHoldDTO holdDTO = RoomHoldDTO.builder()
+                .holdId(hold.holdId())
+                .roomId(hold.roomId())
+                .checkInDate(hold.start())
+                .checkOutDate(hold.end())
+                .expiresAt(LocalDateTime.ofInstant(hold.expiresAt(), ZoneId.systemDefault()))
+                .build();
+
+        return Response.builder()
+                .status(200)
+                .message("Room held successfully")
+                .hold(holdDTO)
+                .build();
+    }
+
+    @Override
+    public Response releaseHold(String holdId) {
+        String holder = SecurityContextHolder.getContext().getAuthentication().getName();
+        roomHoldRegistry.release(holdId, holder);
+
+        return Response.builder()
+                .status(200)
+                .message("Hold released successfully")
+                .build();
+    }
+
+    // Optimistic mode needs the storage to reject a double booking on insert, otherwise stay SERIALIZABLE
+    private boolean isOptimisticReservation() {
+        return "optimistic".equalsIgnoreCase(reservationMode) && roomAvailabilityService.detectsConflictsOnInsert();
+    }
+
+    private Response doCreateBooking(BookingDTO bookingDTO, BookingMetrics.Attempt metrics) {
+        try {
+            User currentUser = metrics.stage("user_lookup", () -> userService.getCurrentLoggedInUser());
 
             // Validate check-out date không quá xa (max 1 năm)
             if (bookingDTO.getCheckOutDate().isAfter(LocalDate.now().plusYears(1))) {
-                throw new InvalidBookingStateAndDateException("Cannot book more than 1 year in advance");
+                throw metrics.reject("too_far_in_advance", "Cannot book more than 1 year in advance");
             }
 
             // Validate booking duration (min 1 night, max 30 nights)
             long nights = ChronoUnit.DAYS.between(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
             if (nights > 30) {
-                throw new InvalidBookingStateAndDateException("Maximum stay is 30 nights");
+                throw metrics.reject("stay_too_long", "Maximum stay is 30 nights");
             }
 
             // Prevent spam - check user's pending bookings
-            long pendingCount = bookingRepository.countByUserAndPaymentStatus(
-                    currentUser, PaymentStatus.PENDING
-            );
-            if (pendingCount >= 3) {
-                throw new InvalidBookingStateAndDateException("You have too many pending bookings. Please complete or cancel them first.");
+            boolean reserved = metrics.stage("pending_count", () -> pendingBookingCounter.tryReserve(currentUser, 1));
+            if (!reserved) {
+                throw metrics.reject("too_many_pending", "You have too many pending bookings. Please complete or cancel them first.");
             }
 
-            Room room = roomRepository.findById(bookingDTO.getRoom().getId())
+            Room room = metrics.stage("room_lookup", () -> roomRepository.findById(bookingDTO.getRoom().getId()))
                     .orElseThrow(()-> new NotFoundException("Room Not Found"));
 
             // Validation: Ensure the check-in date is not before today
             if (bookingDTO.getCheckInDate().isBefore(LocalDate.now())){
-                throw new InvalidBookingStateAndDateException("Check in date cannot be before today");
+                throw metrics.reject("check_in_in_past", "Check in date cannot be before today");
             }
 
             // Validation: Ensure the check-out date is not before check in date
             if (bookingDTO.getCheckOutDate().isBefore(bookingDTO.getCheckInDate())){
-                throw new InvalidBookingStateAndDateException("Check out date cannot be before check in date");
+                throw metrics.reject("check_out_before_check_in", "Check out date cannot be before check in date");
             }
 
             // Validation: Ensure the check-in date is not same as check out date
             if (bookingDTO.getCheckInDate().isEqual(bookingDTO.getCheckOutDate())){
-                throw new InvalidBookingStateAndDateException("Check in date cannot be equal to check out date");
+                throw metrics.reject("zero_nights", "Check in date cannot be equal to check out date");
             }
 
             // Validate room availability
-            boolean isAvailable = roomAvailabilityService.isAvailable(room.getId(), bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
+            boolean isAvailable = metrics.stage("availability", () -> roomAvailabilityService.isAvailable(
+                    room.getId(), bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate()));
             if (!isAvailable) {
-                throw new InvalidBookingStateAndDateException("Room is not available for the selected date ranges");
+                throw metrics.reject("room_unavailable", "Room is not available for the selected date ranges");
             }
 
-            // QUAN TRỌNG: Lưu giá phòng tại thời điểm booking
-            BigDecimal pricePerNightAtBooking = room.getPricePerNight();
+            // Calculate the total price từ lịch giá theo ngày
+            BigDecimal totalPrice = metrics.stage("pricing", () -> calculateTotalPrice(room, bookingDTO));
 
-            // Calculate the total price với giá hiện tại
-            BigDecimal totalPrice = calculateTotalPrice(pricePerNightAtBooking, bookingDTO);
+            // QUAN TRỌNG: Lưu giá phòng tại thời điểm booking (trung bình mỗi đêm khi giá thay đổi theo ngày)
+            BigDecimal pricePerNightAtBooking = averagePricePerNight(totalPrice, bookingDTO);
 
             // Validate total price
             if (totalPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new InvalidBookingStateAndDateException("Invalid booking price");
+                throw metrics.reject("invalid_price", "Invalid booking price");
             }
 
-            String bookingReference;
-            do {
-                bookingReference = bookingCodeGenerator.generateBookingReference();
-            } while (bookingRepository.existsByBookingReference(bookingReference));
+            // Unique by construction, no lookup needed
+            String bookingReference = metrics.stage("reference", () -> bookingCodeGenerator.generateBookingReference());
 
             // Create and save the booking
             Booking booking = new Booking();
@@ -138,12 +408,12 @@ public class BookingServiceImpl implements BookingService {
             booking.setRoom(room);
             booking.setUser(currentUser);
 
-            bookingRepository.save(booking);
+            metrics.stage("save_booking", () -> bookingRepository.save(booking));
 
             // Save guests
             if (bookingDTO.getGuests() != null && !bookingDTO.getGuests().isEmpty()) {
                 if (bookingDTO.getGuests().size() > room.getCapacity()) {
-                    throw new InvalidBookingStateAndDateException(
+                    throw metrics.reject("too_many_guests",
                             "Number of guests (" + bookingDTO.getGuests().size() +
                                     ") exceeds room capacity (" + room.getCapacity() + ")"
                     );
@@ -161,32 +431,19 @@ public class BookingServiceImpl implements BookingService {
                     booking.addGuest(guest);
                 }
 
-                bookingRepository.save(booking);
+                metrics.stage("save_guests", () -> bookingRepository.save(booking));
             }
 
             // Reserve dates
             try {
-                roomAvailabilityService.bookRoomDates(room, booking.getCheckInDate(), booking.getCheckOutDate(), booking);
+                metrics.stage("book_room_dates", () -> roomAvailabilityService.bookRoomDates(
+                        room, booking.getCheckInDate(), booking.getCheckOutDate(), booking));
             } catch (InvalidBookingStateAndDateException e) {
-                throw new InvalidBookingStateAndDateException("Failed to reserve room: " + e.getMessage());
+                throw metrics.reject("reservation_conflict", "Failed to reserve room: " + e.getMessage());
             }
 
             // Tạo payment link
-            String token;
-            do {
-                token = UUID.randomUUID().toString().replace("-", "")
-                        + RandomStringUtils.secure().nextAlphanumeric(32);
-            } while (paymentLinkRepository.existsByToken(token));
-
-            PaymentLink link = PaymentLink.builder()
-                    .token(token)
-                    .booking(booking)
-                    .expiresAt(LocalDateTime.now().plusMinutes(10))
-                    .build();
-
-            paymentLinkRepository.save(link);
-
-            String paymentUrl = "http://localhost:4200/payment?token=" + token;
+            String paymentUrl = metrics.stage("payment_link", () -> createPaymentLink(booking));
 
             // Send notification
             try {
@@ -212,7 +469,7 @@ public class BookingServiceImpl implements BookingService {
                         .bookingReference(bookingReference)
                         .build();
 
-                notificationService.sendEmail(notificationDTO);
+                metrics.stage("mail_enqueue", () -> notificationService.enqueueEmail(notificationDTO));
             } catch (Exception e) {
                 log.error("Failed to send booking confirmation email for booking: {}", bookingReference, e);
             }
@@ -222,17 +479,298 @@ public class BookingServiceImpl implements BookingService {
                     .status(200)
                     .message("Booking created successfully")
                     .booking(responseDTO)
+                    .paymentUrl(paymentUrl)
                     .build();
 
         } catch (InvalidBookingStateAndDateException | NotFoundException e) {
             log.warn("Booking creation failed: {}", e.getMessage());
             throw e;
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            // Retried by executeWithRetry
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error during booking creation", e);
             throw new RuntimeException("Failed to create booking. Please try again later.");
         }
     }
 
+    @Override
+    public Response createGroupBooking(GroupBookingDTO groupBookingDTO) {
+        List<BookingDTO> items = groupBookingDTO.getBookings();
+        if (items == null || items.isEmpty()) {
+            throw new InvalidBookingStateAndDateException("At least one room is required");
+        }
+        if (items.size() > MAX_GROUP_ROOMS) {
+            throw new InvalidBookingStateAndDateException("A group booking can have at most " + MAX_GROUP_ROOMS + " rooms");
+        }
+        for (BookingDTO item : items) {
+            validateStay(item);
+            checkHold(item);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(isOptimisticReservation()
+                ? TransactionDefinition.ISOLATION_READ_COMMITTED
+                : TransactionDefinition.ISOLATION_SERIALIZABLE);
+        Response response = executeWithRetry(transaction,
+                () -> transaction.execute(status -> doCreateGroupBooking(items)), () -> {});
+
+        for (BookingDTO item : items) {
+            if (item.getHoldId() != null) {
+                roomHoldRegistry.consume(item.getHoldId());
+            }
+        }
+        return response;
+    }
+
+    private Response doCreateGroupBooking(List<BookingDTO> items) {
+        try {
+            User currentUser = userService.getCurrentLoggedInUser();
+
+            if (!pendingBookingCounter.tryReserve(currentUser, items.size())) {
+                throw new InvalidBookingStateAndDateException("You have too many pending bookings. Please complete or cancel them first.");
+            }
+
+            // All rooms in one query
+            Set<Long> roomIds = items.stream().map(item -> item.getRoom().getId()).collect(Collectors.toSet());
+            Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                    .collect(Collectors.toMap(Room::getId, Function.identity()));
+            if (rooms.size() != roomIds.size()) {
+                throw new NotFoundException("Room Not Found");
+            }
+
+            // Fail fast from memory, the reservation below re-checks all rooms in one query inside the transaction
+            for (BookingDTO item : items) {
+                Long roomId = item.getRoom().getId();
+                if (roomOccupancyIndex.covers(item.getCheckInDate(), item.getCheckOutDate())
+                        && !roomOccupancyIndex.confirmBookedRooms(
+                                List.of(roomId), item.getCheckInDate(), item.getCheckOutDate()).isEmpty()) {
+                    throw new InvalidBookingStateAndDateException("Room " + rooms.get(roomId).getRoomNumber()
+                            + " is not available for the selected date ranges");
+                }
+            }
+
+            String groupReference = null;
+            BigDecimal groupTotal = BigDecimal.ZERO;
+            LocalDateTime createdAt = LocalDateTime.now();
+
+            List<Booking> bookings = new ArrayList<>();
+            List<Guest> guests = new ArrayList<>();
+            for (BookingDTO item : items) {
+                Room room = rooms.get(item.getRoom().getId());
+
+                if (item.getGuests() != null && item.getGuests().size() > room.getCapacity()) {
+                    throw new InvalidBookingStateAndDateException(
+                            "Number of guests (" + item.getGuests().size() +
+                                    ") exceeds capacity of room " + room.getRoomNumber() + " (" + room.getCapacity() + ")"
+                    );
+                }
+
+                BigDecimal totalPrice = calculateTotalPrice(room, item);
+                if (totalPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new InvalidBookingStateAndDateException("Invalid booking price");
+                }
+
+                String bookingReference = bookingCodeGenerator.generateBookingReference();
+                if (groupReference == null) {
+                    groupReference = bookingReference; // the first room is the lead booking
+                }
+
+                Booking booking = new Booking();
+                booking.setBookingReference(bookingReference);
+                booking.setGroupReference(groupReference);
+                booking.setCheckInDate(item.getCheckInDate());
+                booking.setCheckOutDate(item.getCheckOutDate());
+                booking.setPricePerNightAtBooking(averagePricePerNight(totalPrice, item));
+                booking.setTotalPrice(totalPrice);
+                booking.setBookingStatus(BookingStatus.BOOKED);
+                booking.setPaymentStatus(PaymentStatus.PENDING);
+                booking.setCreatedAt(createdAt);
+                booking.setRoom(room);
+                booking.setUser(currentUser);
+                bookings.add(booking);
+                groupTotal = groupTotal.add(totalPrice);
+
+                if (item.getGuests() != null) {
+                    for (GuestDTO guestDTO : item.getGuests()) {
+                        Guest guest = Guest.builder()
+                                .firstName(guestDTO.getFirstName())
+                                .lastName(guestDTO.getLastName())
+                                .email(guestDTO.getEmail())
+                                .phoneNumber(guestDTO.getPhoneNumber())
+                                .identityNumber(guestDTO.getIdentityNumber())
+                                .build();
+                        booking.addGuest(guest);
+                        guests.add(guest);
+                    }
+                }
+            }
+
+            // Batched inserts: bookings first for their ids, then guests and reserved nights
+            bookingBatchRepository.insertBookings(bookings);
+            bookingBatchRepository.insertGuests(guests);
+
+            List<RoomReservation> reservations = bookings.stream()
+                    .map(booking -> new RoomReservation(booking.getRoom().getId(),
+                            booking.getCheckInDate(), booking.getCheckOutDate(), booking.getId()))
+                    .toList();
+            try {
+                roomAvailabilityService.bookRoomDates(reservations);
+            } catch (InvalidBookingStateAndDateException e) {
+                throw new InvalidBookingStateAndDateException("Failed to reserve room: " + e.getMessage());
+            }
+
+            // One payment link for the whole group, on the lead booking
+            String paymentUrl = createPaymentLink(bookingRepository.getReferenceById(bookings.get(0).getId()));
+
+            try {
+                StringBuilder roomList = new StringBuilder();
+                for (Booking booking : bookings) {
+                    roomList.append("- Room ").append(booking.getRoom().getRoomNumber())
+                            .append(" (").append(booking.getBookingReference()).append("): ")
+                            .append(booking.getCheckInDate()).append(" to ").append(booking.getCheckOutDate())
+                            .append(", $").append(booking.getTotalPrice()).append("\n");
+                }
+
+                NotificationDTO notificationDTO = NotificationDTO.builder()
+                        .recipient(currentUser.getEmail())
+                        .subject("Group Booking Confirmation")
+                        .body(
+                                "Your group booking with reference **" + groupReference + "** has been successfully created.\n" +
+                                        "Rooms:\n" + roomList +
+                                        "Total price: $" + groupTotal + "\n" +
+                                        "Please proceed with your payment using the payment link below:\n" +
+                                        paymentUrl
+                        )
+                        .bookingReference(groupReference)
+                        .build();
+
+                notificationService.enqueueEmail(notificationDTO);
+            } catch (Exception e) {
+                log.error("Failed to send group booking confirmation email for group: {}", groupReference, e);
+            }
+
+            List<BookingDTO> bookingDTOList = modelMapper.map(bookings, new TypeToken<List<BookingDTO>>() {}.getType());
+            for (BookingDTO bookingDTO : bookingDTOList) {
+                bookingDTO.setUser(null);
+            }
+
+            return Response.builder()
+                    .status(200)
+                    .message("Group booking created successfully")
+                    .groupBooking(GroupBookingDTO.builder()
+                            .groupReference(groupReference)
+                            .bookings(bookingDTOList)
+                            .totalPrice(groupTotal)
+                            .build())
+                    .paymentUrl(paymentUrl)
+                    .build();
+
+        } catch (InvalidBookingStateAndDateException | NotFoundException e) {
+            log.warn("Group booking creation failed: {}", e.getMessage());
+            throw e;
+        } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+            // Retried by executeWithRetry
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error during group booking creation", e);
+            throw new RuntimeException("Failed to create group booking. Please try again later.");
+        }
+    }
+
+    // Same rules as a single booking, checked before the transaction
+    private void validateStay(BookingDTO bookingDTO) {
+        if (bookingDTO.getRoom() == null || bookingDTO.getRoom().getId() == null) {
+            throw new InvalidBookingStateAndDateException("Room is required");
+        }
+        if (bookingDTO.getCheckInDate() == null || bookingDTO.getCheckOutDate() == null) {
+            throw new InvalidBookingStateAndDateException("Check in and check out dates are required");
+        }
+        if (bookingDTO.getCheckInDate().isBefore(LocalDate.now())) {
+            throw new InvalidBookingStateAndDateException("Check in date cannot be before today");
+        }
+        if (!bookingDTO.getCheckOutDate().isAfter(bookingDTO.getCheckInDate())) {
+            throw new InvalidBookingStateAndDateException("Check out date must be after check in date");
+        }
+        if (bookingDTO.getCheckOutDate().isAfter(LocalDate.now().plusYears(1))) {
+            throw new InvalidBookingStateAndDateException("Cannot book more than 1 year in advance");
+        }
+        if (ChronoUnit.DAYS.between(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate()) > 30) {
+            throw new InvalidBookingStateAndDateException("Maximum stay is 30 nights");
+        }
+    }
+
+    private String createPaymentLink(Booking booking) {
+        // Signed token, unique through its random nonce and verifiable without a lookup
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
+        String token = paymentTokenService.issue(booking.getId(), expiresAt);
+
+        PaymentLink link = PaymentLink.builder()
+                .token(token)
+                .booking(booking)
+                .expiresAt(expiresAt)
+                .build();
+
+        paymentLinkRepository.save(link);
+        // Cancel and release the room as soon as the link expires unpaid
+        paymentExpiryWheel.schedule(booking.getId(), expiresAt);
+
+        return "http://localhost:4200/payment?token=" + token;
+    }
+
+    /**
+     * Bookings moved to bookings_history by HistoryArchiver. One booking with its guests when a reference is
+     * given, otherwise a page of the latest archived ones without guests.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Response getBookingHistory(String bookingReference, int page, int size) {
+        if (page < 0 || size < 1 || size > 500) {
+            throw new InvalidBookingStateAndDateException("page must be >= 0 and size between 1 and 500");
+        }
+
+        if (bookingReference != null && !bookingReference.isBlank()) {
+            BookingHistory booking = bookingHistoryRepository.findByBookingReference(bookingReference)
+                    .orElseThrow(() -> new NotFoundException("Archived Booking Not Found"));
+            BookingDTO bookingDTO = toBookingDTO(booking);
+            bookingDTO.setGuests(modelMapper.map(booking.getGuests(), new TypeToken<List<GuestDTO>>() {}.getType()));
+            return Response.builder()
+                    .status(200)
+                    .message("success")
+                    .booking(bookingDTO)
+                    .build();
+        }
+
+        List<BookingDTO> bookingDTOList = bookingHistoryRepository.findAllByOrderByIdDesc(PageRequest.of(page, size))
+                .stream()
+                .map(this::toBookingDTO)
+                .toList();
+
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .bookings(bookingDTOList)
+                .build();
+    }
+
+    // Room and user are ids only, they may have been deleted since
+    private BookingDTO toBookingDTO(BookingHistory booking) {
+        return BookingDTO.builder()
+                .id(booking.getId())
+                .bookingReference(booking.getBookingReference())
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .createdAt(booking.getCreatedAt())
+                .bookingStatus(booking.getBookingStatus())
+                .paymentStatus(booking.getPaymentStatus())
+                .pricePerNightAtBooking(booking.getPricePerNightAtBooking())
+                .totalPrice(booking.getTotalPrice())
+                .groupReference(booking.getGroupReference())
+                .room(booking.getRoomId() != null ? RoomDTO.builder().id(booking.getRoomId()).build() : null)
+                .user(booking.getUserId() != null ? UserDTO.builder().id(booking.getUserId()).build() : null)
+                .build();
+    }
+
     @Override
     public Response findBookingByReference(String bookingReference) {
         User currentUser = userService.getCurrentLoggedInUser();
@@ -274,6 +812,17 @@ public class BookingServiceImpl implements BookingService {
                 throw new InvalidBookingStateAndDateException("Cannot update a cancelled booking");
             }
 
+            // Phòng của NO_SHOW đã được trả lại
+            if (currentStatus == BookingStatus.NO_SHOW) {
+                throw new InvalidBookingStateAndDateException("Cannot update a no-show booking");
+            }
+
+            // NO_SHOW chỉ khi còn BOOKED và đã qua ngày check-in
+            if (newStatus == BookingStatus.NO_SHOW &&
+                    (currentStatus != BookingStatus.BOOKED || !LocalDate.now().isAfter(existingBooking.getCheckInDate()))) {
+                throw new InvalidBookingStateAndDateException("Only a booked stay whose check-in date has passed can be marked as no-show");
+            }
+
             // 2. Không thể CANCEL nếu đã CHECKED_IN
             if (newStatus == BookingStatus.CANCELLED && currentStatus == BookingStatus.CHECKED_IN) {
                 throw new InvalidBookingStateAndDateException("Cannot cancel a booking that is checked in");
@@ -301,8 +850,8 @@ public class BookingServiceImpl implements BookingService {
                 throw new InvalidBookingStateAndDateException("Cannot cancel after check-in date has passed");
             }
 
-            // Nếu cancel, release room dates
-            if (newStatus == BookingStatus.CANCELLED) {
+            // Nếu cancel hoặc no-show, release room dates
+            if (newStatus == BookingStatus.CANCELLED || newStatus == BookingStatus.NO_SHOW) {
                 roomAvailabilityService.releaseRoomDates(
                         existingBooking.getRoom(),
                         existingBooking.getCheckInDate(),
@@ -341,6 +890,11 @@ public class BookingServiceImpl implements BookingService {
                 );
             }
 
+            if (currentPayment == PaymentStatus.PENDING && newPayment != PaymentStatus.PENDING) {
+                pendingBookingCounter.release(existingBooking.getUser().getId(), 1);
+            } else if (currentPayment != PaymentStatus.PENDING && newPayment == PaymentStatus.PENDING) {
+                pendingBookingCounter.add(existingBooking.getUser().getId(), 1);
+            }
             existingBooking.setPaymentStatus(newPayment);
         }
 
@@ -352,25 +906,28 @@ public class BookingServiceImpl implements BookingService {
                 .build();
     }
 
-    // Helper method - tính tổng giá dựa trên giá per night được truyền vào
-    private BigDecimal calculateTotalPrice(BigDecimal pricePerNight, BookingDTO bookingDTO){
+    // Helper method - tính tổng giá từ lịch giá theo ngày của phòng
+    private BigDecimal calculateTotalPrice(Room room, BookingDTO bookingDTO){
+        return roomRateCalendar.quote(room, bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
+    }
+
+    private BigDecimal averagePricePerNight(BigDecimal totalPrice, BookingDTO bookingDTO){
         long days = ChronoUnit.DAYS.between(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
-        return pricePerNight.multiply(BigDecimal.valueOf(days));
+        return totalPrice.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP);
     }
 
     @Override
     public BookingStatusResponse checkBookingStatus(String token){
-        PaymentLink link = paymentLinkRepository.findByToken(token)
-                .orElseThrow(() -> new NotFoundException("Invalid payment token"));
+        // Forged and expired tokens are rejected in memory, the booking is then loaded by primary key
+        PaymentTokenService.PaymentToken paymentToken = paymentTokenService.parse(token);
 
-        Booking booking = link.getBooking();
-
-        if (link.getExpiresAt().isBefore(LocalDateTime.now())) {
-            booking.setBookingStatus(BookingStatus.CANCELLED);
-            booking.setPaymentStatus(PaymentStatus.CANCELLED);
+        if (paymentToken.isExpired()) {
             throw new InvalidBookingStateAndDateException("Payment link has expired. This booking has already been cancelled.");
         }
 
+        Booking booking = bookingRepository.findById(paymentToken.bookingId())
+                .orElseThrow(() -> new NotFoundException("Invalid payment token"));
+
         if (booking.getPaymentStatus() == PaymentStatus.PAID) {
             return BookingStatusResponse.builder()
                     .status("ALREADY_PAID")
@@ -395,10 +952,15 @@ public class BookingServiceImpl implements BookingService {
                     .build();
         }
 
+        // The lead booking of a group is paid for the whole group
+        BigDecimal amount = booking.getGroupReference() != null
+                ? bookingRepository.sumTotalPriceByGroupReference(booking.getGroupReference())
+                : booking.getTotalPrice();
+
         return BookingStatusResponse.builder()
                 .status("OK")
                 .message("Booking is valid and ready for payment.")
-                .amount(booking.getTotalPrice())
+                .amount(amount)
                 .bookingReference(booking.getBookingReference())
                 .build();
     }
@@ -442,6 +1004,9 @@ public class BookingServiceImpl implements BookingService {
 
         // Update statuses
         booking.setBookingStatus(BookingStatus.CANCELLED);
+        if (booking.getPaymentStatus() == PaymentStatus.PENDING) {
+            pendingBookingCounter.release(booking.getUser().getId(), 1);
+        }
         if (booking.getPaymentStatus() == PaymentStatus.PAID) {
             booking.setPaymentStatus(PaymentStatus.REFUNDED);
         } else {
@@ -458,7 +1023,7 @@ public class BookingServiceImpl implements BookingService {
                     .body("Your booking with reference **" + bookingReference + "** has been successfully cancelled.")
                     .bookingReference(bookingReference)
                     .build();
-            notificationService.sendEmail(notificationDTO);
+            notificationService.enqueueEmail(notificationDTO);
         } catch (Exception e) {
             log.error("Failed to send booking confirmation email for booking: {}", bookingReference, e);
         }
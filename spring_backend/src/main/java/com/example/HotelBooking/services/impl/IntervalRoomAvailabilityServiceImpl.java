@@ -0,0 +1,178 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.RoomReservationInterval;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.repositories.BookingBatchRepository;
+import com.example.HotelBooking.repositories.RoomReservationIntervalRepository;
+import com.example.HotelBooking.services.RoomAvailabilityService;
+import com.example.HotelBooking.services.RoomOccupancyChangedEvent;
+import com.example.HotelBooking.services.RoomReservation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interval storage: one room_reservation_intervals row per stay instead of one row per night.
+ * Enabled with booking.availability.storage=interval.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.availability.storage", havingValue = "interval")
+public class IntervalRoomAvailabilityServiceImpl implements RoomAvailabilityService {
+    private final RoomReservationIntervalRepository repo;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public boolean isAvailable(Long roomId, LocalDate start, LocalDate end) {
+        return repo.isRangeFree(roomId, start, end);
+    }
+
+    @Override
+    @Transactional
+    public void bookRoomDates(Room room, LocalDate start, LocalDate end, Booking booking) {
+        // Overlap check on the interval bounds: start < other.end AND end > other.start
+        List<RoomReservationInterval> overlapping = repo.findOverlapping(room.getId(), start, end);
+        if (!overlapping.isEmpty()) {
+            LocalDate firstConflict = overlapping.get(0).getStartDate().isAfter(start)
+                    ? overlapping.get(0).getStartDate()
+                    : start;
+            throw new InvalidBookingStateAndDateException("Room already booked for date: " + firstConflict);
+        }
+
+        repo.save(RoomReservationInterval.builder()
+                .room(room)
+                .startDate(start)
+                .endDate(end)
+                .booking(booking)
+                .build());
+
+        eventPublisher.publishEvent(new RoomOccupancyChangedEvent(room.getId(), start, end, true));
+    }
+
+    @Override
+    @Transactional
+    public void bookRoomDates(List<RoomReservation> reservations) {
+        if (reservations.isEmpty()) return;
+
+        Set<Long> roomIds = new HashSet<>();
+        LocalDate from = reservations.get(0).start();
+        LocalDate to = reservations.get(0).end();
+        for (RoomReservation reservation : reservations) {
+            roomIds.add(reservation.roomId());
+            if (reservation.start().isBefore(from)) from = reservation.start();
+            if (reservation.end().isAfter(to)) to = reservation.end();
+        }
+
+        // Existing intervals plus the ones of this batch, there is no unique key to catch overlaps inside it
+        Map<Long, List<LocalDate[]>> taken = new HashMap<>();
+        for (Object[] row : repo.findRangesOverlappingForRooms(roomIds, from, to)) {
+            taken.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new LocalDate[]{(LocalDate) row[1], (LocalDate) row[2]});
+        }
+
+        for (RoomReservation reservation : reservations) {
+            List<LocalDate[]> roomRanges = taken.computeIfAbsent(reservation.roomId(), id -> new ArrayList<>());
+            for (LocalDate[] range : roomRanges) {
+                if (reservation.start().isBefore(range[1]) && reservation.end().isAfter(range[0])) {
+                    LocalDate firstConflict = range[0].isAfter(reservation.start()) ? range[0] : reservation.start();
+                    throw new InvalidBookingStateAndDateException("Room already booked for date: " + firstConflict);
+                }
+            }
+            roomRanges.add(new LocalDate[]{reservation.start(), reservation.end()});
+        }
+
+        bookingBatchRepository.insertReservationIntervals(reservations);
+
+        for (RoomReservation reservation : reservations) {
+            eventPublisher.publishEvent(new RoomOccupancyChangedEvent(reservation.roomId(), reservation.start(), reservation.end(), true));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void releaseRoomDates(Room room, LocalDate start, LocalDate end) {
+        List<RoomReservationInterval> toDelete = new ArrayList<>();
+        List<RoomReservationInterval> toSave = new ArrayList<>();
+
+        // Drop the nights [start, end) from every overlapping interval, keeping what is left on either side
+        for (RoomReservationInterval interval : repo.findOverlapping(room.getId(), start, end)) {
+            boolean keepBefore = interval.getStartDate().isBefore(start);
+            boolean keepAfter = interval.getEndDate().isAfter(end);
+
+            if (keepBefore && keepAfter) {
+                toSave.add(RoomReservationInterval.builder()
+                        .room(interval.getRoom())
+                        .startDate(end)
+                        .endDate(interval.getEndDate())
+                        .booking(interval.getBooking())
+                        .build());
+                interval.setEndDate(start);
+                toSave.add(interval);
+            } else if (keepBefore) {
+                interval.setEndDate(start);
+                toSave.add(interval);
+            } else if (keepAfter) {
+                interval.setStartDate(end);
+                toSave.add(interval);
+            } else {
+                toDelete.add(interval);
+            }
+        }
+
+        repo.deleteAll(toDelete);
+        repo.saveAll(toSave);
+
+        eventPublisher.publishEvent(new RoomOccupancyChangedEvent(room.getId(), start, end, false));
+    }
+
+    @Override
+    @Transactional
+    public void releaseBookings(List<RoomReservation> reservations) {
+        if (reservations.isEmpty()) return;
+
+        repo.deleteByBookingIds(reservations.stream().map(RoomReservation::bookingId).toList());
+
+        for (RoomReservation reservation : reservations) {
+            if (reservation.roomId() != null) {
+                eventPublisher.publishEvent(new RoomOccupancyChangedEvent(reservation.roomId(), reservation.start(), reservation.end(), false));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, BitSet> findBookedNights(Collection<Long> roomIds, LocalDate start, LocalDate end) {
+        Map<Long, BitSet> bookedNights = new HashMap<>();
+        if (roomIds != null && roomIds.isEmpty()) return bookedNights;
+
+        List<Object[]> rows = roomIds == null
+                ? repo.findRangesOverlapping(start, end)
+                : repo.findRangesOverlappingForRooms(roomIds, start, end);
+
+        int days = (int) ChronoUnit.DAYS.between(start, end);
+        for (Object[] row : rows) {
+            int from = Math.max(0, (int) ChronoUnit.DAYS.between(start, (LocalDate) row[1]));
+            int to = Math.min(days, (int) ChronoUnit.DAYS.between(start, (LocalDate) row[2]));
+            bookedNights.computeIfAbsent((Long) row[0], id -> new BitSet()).set(from, to);
+        }
+        return bookedNights;
+    }
+}
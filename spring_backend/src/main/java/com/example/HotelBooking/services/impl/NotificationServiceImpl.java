@@ -2,15 +2,25 @@ package com.example.HotelBooking.services.impl;
 
 import com.example.HotelBooking.dtos.NotificationDTO;
 import com.example.HotelBooking.entities.Notification;
+import com.example.HotelBooking.entities.OutboxEvent;
 import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.OutboxStatus;
 import com.example.HotelBooking.repositories.NotificationRepository;
+import com.example.HotelBooking.repositories.OutboxEventRepository;
 import com.example.HotelBooking.services.NotificationService;
+import com.example.HotelBooking.services.OutboxEventsAddedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 @Service
 @Slf4j
@@ -22,9 +32,41 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
 
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     @Async
     public void sendEmail(NotificationDTO notificationDTO) {
+        deliverEmail(notificationDTO);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueEmail(NotificationDTO notificationDTO) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(notificationDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Notification cannot be serialized", e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(NotificationType.EMAIL)
+                .bookingReference(notificationDTO.getBookingReference())
+                .payload(payload)
+                .status(OutboxStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        eventPublisher.publishEvent(new OutboxEventsAddedEvent());
+    }
+
+    @Override
+    public void deliverEmail(NotificationDTO notificationDTO) {
         log.info("Sending email ...");
 
         SimpleMailMessage simpleMailMessage = new SimpleMailMessage();
@@ -4,25 +4,41 @@ import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.Room;
 import com.example.HotelBooking.entities.RoomAvailability;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.repositories.BookingBatchRepository;
 import com.example.HotelBooking.repositories.RoomAvailabilityRepository;
 import com.example.HotelBooking.services.RoomAvailabilityService;
+import com.example.HotelBooking.services.RoomOccupancyChangedEvent;
+import com.example.HotelBooking.services.RoomReservation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+/**
+ * Default storage: one room_availability row per booked night.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.availability.storage", havingValue = "nightly", matchIfMissing = true)
 public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
     private final RoomAvailabilityRepository repo;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public boolean isAvailable(Long roomId, LocalDate start, LocalDate end) {
@@ -32,6 +48,10 @@ public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
     @Override
     @Transactional
     public void bookRoomDates(Room room, LocalDate start, LocalDate end, Booking booking) {
+        // Leftover unbooked rows would be updated in place, which two READ COMMITTED transactions
+        // can both do. Drop them so every reserved night is a fresh insert checked by (room_id, date)
+        repo.deleteUnbookedRange(room.getId(), start, end.minusDays(1));
+
         // Query 1 lần cho toàn bộ range thay vì loop
         List<RoomAvailability> existing = repo.findByRoomIdAndDateBetween(
                 room.getId(),
@@ -39,43 +59,76 @@ public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
                 end.minusDays(1) // end is exclusive
         );
 
-        // Tạo map để tra cứu nhanh O(1)
-        Map<LocalDate, RoomAvailability> existingMap = existing.stream()
-                .collect(Collectors.toMap(RoomAvailability::getDate, Function.identity()));
+        if (!existing.isEmpty()) {
+            LocalDate firstBooked = existing.stream()
+                    .map(RoomAvailability::getDate)
+                    .min(LocalDate::compareTo)
+                    .get();
+            throw new InvalidBookingStateAndDateException("Room already booked for date: " + firstBooked);
+        }
 
         // iterate days [start, end) - typical hotel nights counting
         List<RoomAvailability> toSave = new ArrayList<>();
         LocalDate current = start;
 
         while (current.isBefore(end)) {
-            RoomAvailability availability = existingMap.get(current);
-
-            if (availability != null) {
-                // Row đã tồn tại
-                if (availability.isBooked()) {
-                    throw new InvalidBookingStateAndDateException(
-                            "Room already booked for date: " + current
-                    );
-                }
-                availability.setBooked(true);
-                availability.setBooking(booking);
-                toSave.add(availability);
-            } else {
-                // Tạo row mới
-                RoomAvailability newAvailability = RoomAvailability.builder()
-                        .room(room)
-                        .date(current)
-                        .booked(true)
-                        .booking(booking)
-                        .build();
-                toSave.add(newAvailability);
-            }
+            toSave.add(RoomAvailability.builder()
+                    .room(room)
+                    .date(current)
+                    .booked(true)
+                    .booking(booking)
+                    .build());
 
             current = current.plusDays(1);
         }
 
-        // Batch save - 1 query duy nhất
-        repo.saveAll(toSave);
+        // Flush now so a concurrent reservation of the same night fails here on the unique key
+        try {
+            repo.saveAllAndFlush(toSave);
+        } catch (DataIntegrityViolationException e) {
+            throw new InvalidBookingStateAndDateException("Room was just booked by someone else for the selected dates");
+        }
+
+        eventPublisher.publishEvent(new RoomOccupancyChangedEvent(room.getId(), start, end, true));
+    }
+
+    @Override
+    @Transactional
+    public void bookRoomDates(List<RoomReservation> reservations) {
+        if (reservations.isEmpty()) return;
+
+        Set<Long> roomIds = new HashSet<>();
+        LocalDate from = reservations.get(0).start();
+        LocalDate to = reservations.get(0).end();
+        for (RoomReservation reservation : reservations) {
+            roomIds.add(reservation.roomId());
+            if (reservation.start().isBefore(from)) from = reservation.start();
+            if (reservation.end().isAfter(to)) to = reservation.end();
+        }
+
+        // Same as the single booking: reserved nights must be fresh inserts checked by (room_id, date)
+        repo.deleteUnbookedRangeForRooms(roomIds, from, to.minusDays(1));
+
+        Map<Long, BitSet> bookedNights = findBookedNights(roomIds, from, to);
+        for (RoomReservation reservation : reservations) {
+            BitSet booked = bookedNights.get(reservation.roomId());
+            if (booked == null) continue;
+
+            int first = booked.nextSetBit((int) ChronoUnit.DAYS.between(from, reservation.start()));
+            if (first >= 0 && first < ChronoUnit.DAYS.between(from, reservation.end())) {
+                throw new InvalidBookingStateAndDateException("Room already booked for date: " + from.plusDays(first));
+            }
+        }
+
+        try {
+            bookingBatchRepository.insertBookedNights(reservations);
+        } catch (DataIntegrityViolationException e) {
+            throw new InvalidBookingStateAndDateException("A room was just booked by someone else for the selected dates");
+        }
+
+        for (RoomReservation reservation : reservations) {
+            eventPublisher.publishEvent(new RoomOccupancyChangedEvent(reservation.roomId(), reservation.start(), reservation.end(), true));
+        }
     }
 
     @Override
@@ -85,5 +138,44 @@ public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
         repo.markRangeAvailable(room.getId(), start, end.minusDays(1));
         // optional: cleanup orphan unbooked rows to keep table small
         repo.deleteUnbookedRange(room.getId(), start, end.minusDays(1));
+
+        eventPublisher.publishEvent(new RoomOccupancyChangedEvent(room.getId(), start, end, false));
+    }
+
+    @Override
+    @Transactional
+    public void releaseBookings(List<RoomReservation> reservations) {
+        if (reservations.isEmpty()) return;
+
+        repo.deleteByBookingIds(reservations.stream().map(RoomReservation::bookingId).toList());
+
+        for (RoomReservation reservation : reservations) {
+            if (reservation.roomId() != null) {
+                eventPublisher.publishEvent(new RoomOccupancyChangedEvent(reservation.roomId(), reservation.start(), reservation.end(), false));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, BitSet> findBookedNights(Collection<Long> roomIds, LocalDate start, LocalDate end) {
+        Map<Long, BitSet> bookedNights = new HashMap<>();
+        if (roomIds != null && roomIds.isEmpty()) return bookedNights;
+
+        List<Object[]> rows = roomIds == null
+                ? repo.findBookedNightsBetween(start, end.minusDays(1))
+                : repo.findBookedNightsForRooms(roomIds, start, end.minusDays(1));
+
+        for (Object[] row : rows) {
+            bookedNights.computeIfAbsent((Long) row[0], id -> new BitSet())
+                    .set((int) ChronoUnit.DAYS.between(start, (LocalDate) row[1]));
+        }
+        return bookedNights;
+    }
+
+    @Override
+    public boolean detectsConflictsOnInsert() {
+        // unique (room_id, date) on room_availability
+        return true;
     }
 }
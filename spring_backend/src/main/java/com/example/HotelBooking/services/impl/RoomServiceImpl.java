@@ -1,27 +1,60 @@
 package com.example.HotelBooking.services.impl;
 
+import com.example.HotelBooking.dtos.AvailabilityCheckRequest;
+import com.example.HotelBooking.dtos.AvailabilityCheckResult;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomNightDTO;
+import com.example.HotelBooking.dtos.RoomRateDTO;
+import com.example.HotelBooking.dtos.StayOptionDTO;
 import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.RoomRate;
 import com.example.HotelBooking.enums.RoomType;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.repositories.BookingBatchRepository;
+import com.example.HotelBooking.repositories.RoomAvailabilityHistoryRepository;
 import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.services.AvailableRoomsCache;
+import com.example.HotelBooking.services.RoomAvailabilityService;
+import com.example.HotelBooking.services.RoomHoldRegistry;
+import com.example.HotelBooking.services.RoomOccupancyIndex;
+import com.example.HotelBooking.services.RoomRateCalendar;
+import com.example.HotelBooking.services.RoomRatesChangedEvent;
 import com.example.HotelBooking.services.RoomService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -31,8 +64,22 @@ public class RoomServiceImpl implements RoomService {
 
     private final RoomRepository roomRepository;
     private final ModelMapper modelMapper;
+    private final RoomOccupancyIndex roomOccupancyIndex;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final AvailableRoomsCache availableRoomsCache;
+    private final ObjectMapper objectMapper;
+    private final RoomHoldRegistry roomHoldRegistry;
+    private final RoomRateCalendar roomRateCalendar;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoomAvailabilityHistoryRepository roomAvailabilityHistoryRepository;
 
     private static final String IMAGE_DIRECTORY = "E:/hotel_booking_project/data/rooms/";
+    private static final int MAX_GRID_DAYS = 366;
+    private static final int MAX_BATCH_CHECKS = 200;
+    private static final int MAX_STAY_NIGHTS = 30;
+    private static final int MAX_RATE_DAYS = 366;
+    private static final int MAX_RATE_NIGHTS_PER_UPLOAD = 100_000;
 
     @Override
     public Response addRoom(RoomDTO roomDTO, MultipartFile imageFile) {
@@ -45,6 +92,9 @@ public class RoomServiceImpl implements RoomService {
         }
 
         roomRepository.save(roomToSave);
+        availableRoomsCache.clear();
+        roomOccupancyIndex.refreshRooms();
+        roomRateCalendar.refreshRooms(List.of(roomToSave.getId()));
 
         return Response.builder()
                 .status(200)
@@ -79,6 +129,9 @@ public class RoomServiceImpl implements RoomService {
             existingRoom.setDescription(roomDTO.getDescription());
 
         roomRepository.save(existingRoom);
+        availableRoomsCache.clear();
+        roomOccupancyIndex.refreshRooms();
+        roomRateCalendar.refreshRooms(List.of(existingRoom.getId()));
 
         return Response.builder()
                 .status(200)
@@ -121,6 +174,9 @@ public class RoomServiceImpl implements RoomService {
         }
 
         roomRepository.deleteById(id);
+        availableRoomsCache.clear();
+        roomOccupancyIndex.refreshRooms();
+        roomRateCalendar.refreshRooms(List.of(id));
 
         return Response.builder()
                 .status(200)
@@ -140,15 +196,206 @@ public class RoomServiceImpl implements RoomService {
         if (checkInDate.isEqual(checkOutDate))
             throw new InvalidBookingStateAndDateException("check in date cannot be equal to check out date");
 
-        List<Room> roomList = roomRepository.findAvailableRooms(checkInDate, checkOutDate, roomType);
+        boolean indexed = roomOccupancyIndex.covers(checkInDate, checkOutDate);
+
+        List<RoomDTO> roomDTOList = availableRoomsCache.get(checkInDate, checkOutDate, roomType);
+
+        if (roomDTOList == null) {
+            long cacheGeneration = availableRoomsCache.generation();
+
+            List<Room> roomList;
+            if (indexed) {
+                // Answer from the in-memory bitmaps, only rooms the index sees as booked are confirmed in the database
+                List<Room> candidates = roomType == null ? roomRepository.findAll() : roomRepository.findByType(roomType);
+                Set<Long> bookedRoomIds = roomOccupancyIndex.confirmBookedRooms(
+                        candidates.stream().map(Room::getId).toList(), checkInDate, checkOutDate);
+                roomList = candidates.stream()
+                        .filter(room -> !bookedRoomIds.contains(room.getId()))
+                        .toList();
+            } else {
+                roomList = roomRepository.findAvailableRooms(checkInDate, checkOutDate, roomType);
+            }
+
+            roomDTOList = modelMapper.map(roomList, new TypeToken<List<RoomDTO>>() {}.getType());
+            for (int i = 0; i < roomList.size(); i++) {
+                roomDTOList.get(i).setQuote(roomRateCalendar.quote(roomList.get(i), checkInDate, checkOutDate));
+            }
+            availableRoomsCache.put(checkInDate, checkOutDate, roomType, roomDTOList, cacheGeneration);
+        }
 
-        List<RoomDTO> roomDTOList =
-                modelMapper.map(roomList, new TypeToken<List<RoomDTO>>() {}.getType());
+        // Holds come and go within minutes, so they are filtered on every request instead of being cached
+        Set<Long> heldRoomIds = roomHoldRegistry.heldRoomIds(
+                roomDTOList.stream().map(RoomDTO::getId).toList(), checkInDate, checkOutDate);
+        if (!heldRoomIds.isEmpty()) {
+            roomDTOList = roomDTOList.stream()
+                    .filter(room -> !heldRoomIds.contains(room.getId()))
+                    .toList();
+        }
+
+        // Per-type "rooms left" from the in-memory counters, read after the confirmation above cleared stale nights
+        Map<RoomType, Integer> roomsLeft = null;
+        if (indexed) {
+            roomsLeft = new EnumMap<>(RoomType.class);
+            for (RoomType type : roomType == null ? RoomType.values() : new RoomType[]{roomType}) {
+                roomsLeft.put(type, roomOccupancyIndex.roomsLeft(type, checkInDate, checkOutDate));
+            }
+        }
 
         return Response.builder()
                 .status(200)
                 .message("success")
                 .rooms(roomDTOList)
+                .roomsLeft(roomsLeft)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response uploadRoomRates(List<RoomRateDTO> rates) {
+
+        if (rates == null || rates.contains(null))
+            throw new InvalidBookingStateAndDateException("Room rates cannot be null");
+
+        List<RoomRate> nights = new ArrayList<>();
+        Set<Long> roomIds = new HashSet<>();
+        LocalDate start = null;
+        LocalDate end = null;
+
+        for (RoomRateDTO rate : rates) {
+            if (rate.getStartDate().isBefore(LocalDate.now()))
+                throw new InvalidBookingStateAndDateException("rate start date cannot be before today");
+
+            if (!rate.getEndDate().isAfter(rate.getStartDate()))
+                throw new InvalidBookingStateAndDateException("rate end date must be after start date");
+
+            if (ChronoUnit.DAYS.between(rate.getStartDate(), rate.getEndDate()) > MAX_RATE_DAYS)
+                throw new InvalidBookingStateAndDateException("a rate can cover at most " + MAX_RATE_DAYS + " days");
+
+            if (roomIds.add(rate.getRoomId()) && !roomRepository.existsById(rate.getRoomId()))
+                throw new NotFoundException("Room not found: " + rate.getRoomId());
+
+            Room room = roomRepository.getReferenceById(rate.getRoomId());
+            Set<DayOfWeek> days = rate.getDaysOfWeek();
+            for (LocalDate night = rate.getStartDate(); night.isBefore(rate.getEndDate()); night = night.plusDays(1)) {
+                if (days == null || days.isEmpty() || days.contains(night.getDayOfWeek())) {
+                    nights.add(RoomRate.builder().room(room).date(night).price(rate.getPrice()).build());
+                }
+            }
+            if (nights.size() > MAX_RATE_NIGHTS_PER_UPLOAD)
+                throw new InvalidBookingStateAndDateException("an upload can set at most " + MAX_RATE_NIGHTS_PER_UPLOAD + " nights");
+
+            start = start == null || rate.getStartDate().isBefore(start) ? rate.getStartDate() : start;
+            end = end == null || rate.getEndDate().isAfter(end) ? rate.getEndDate() : end;
+        }
+
+        // Later lines win over earlier ones for the same night, same as applying the upload in order
+        Map<String, RoomRate> latest = new LinkedHashMap<>();
+        for (RoomRate night : nights) {
+            latest.put(night.getRoom().getId() + "|" + night.getDate(), night);
+        }
+        bookingBatchRepository.upsertRoomRates(new ArrayList<>(latest.values()));
+
+        if (!roomIds.isEmpty()) {
+            eventPublisher.publishEvent(new RoomRatesChangedEvent(roomIds, start, end));
+        }
+
+        return Response.builder()
+                .status(200)
+                .message("Room rates updated for " + latest.size() + " nights")
+                .build();
+    }
+
+    @Override
+    public Response getFlexibleAvailableRooms(LocalDate windowStart, LocalDate windowEnd, int nights, RoomType roomType) {
+
+        if (windowStart.isBefore(LocalDate.now()))
+            throw new InvalidBookingStateAndDateException("window start cannot be before today");
+
+        if (!windowEnd.isAfter(windowStart))
+            throw new InvalidBookingStateAndDateException("window end must be after window start");
+
+        if (windowEnd.isAfter(windowStart.plusDays(MAX_GRID_DAYS)))
+            throw new InvalidBookingStateAndDateException("window cannot be longer than " + MAX_GRID_DAYS + " days");
+
+        if (nights < 1 || nights > MAX_STAY_NIGHTS)
+            throw new InvalidBookingStateAndDateException("nights must be between 1 and " + MAX_STAY_NIGHTS);
+
+        int windowDays = (int) ChronoUnit.DAYS.between(windowStart, windowEnd);
+        if (nights > windowDays)
+            throw new InvalidBookingStateAndDateException("stay does not fit in the window");
+
+        List<Room> rooms = roomType == null ? roomRepository.findAll() : roomRepository.findByType(roomType);
+        Map<Long, BitSet> bookedNights = loadBookedNights(rooms, windowStart, windowEnd);
+
+        List<StayOptionDTO> stayOptions = new ArrayList<>();
+        for (Room room : rooms) {
+            BitSet booked = bookedNights.getOrDefault(room.getId(), new BitSet());
+
+            // Slide over the free runs: a run of length L >= nights gives L - nights + 1 check-in dates
+            List<LocalDate> checkInDates = new ArrayList<>();
+            int runStart = booked.nextClearBit(0);
+            while (runStart + nights <= windowDays) {
+                int runEnd = Math.min(windowDays, nextSetBitOrEnd(booked, runStart));
+                for (int start = runStart; start + nights <= runEnd; start++) {
+                    checkInDates.add(windowStart.plusDays(start));
+                }
+                runStart = booked.nextClearBit(runEnd);
+            }
+
+            if (!checkInDates.isEmpty()) {
+                stayOptions.add(StayOptionDTO.builder()
+                        .room(modelMapper.map(room, RoomDTO.class))
+                        .nights(nights)
+                        .checkInDates(checkInDates)
+                        .build());
+            }
+        }
+
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .stayOptions(stayOptions)
+                .build();
+    }
+
+    // Booked nights of every room over [start, end), bit i = night start + i
+    private Map<Long, BitSet> loadBookedNights(List<Room> rooms, LocalDate start, LocalDate end) {
+        Map<Long, BitSet> bookedNights = new HashMap<>();
+        if (rooms.isEmpty()) return bookedNights;
+
+        if (roomOccupancyIndex.covers(start, end)) {
+            List<Long> unconfirmed = new ArrayList<>();
+            for (Room room : rooms) {
+                BitSet nights = roomOccupancyIndex.bookedNights(room.getId(), start, end);
+                bookedNights.put(room.getId(), nights);
+                if (!nights.isEmpty()) unconfirmed.add(room.getId());
+            }
+            if (unconfirmed.isEmpty()) return bookedNights;
+
+            // The index may still hold nights released on another instance, the database has the last word
+            Map<Long, BitSet> confirmed = roomAvailabilityService.findBookedNights(unconfirmed, start, end);
+            roomOccupancyIndex.reconcile(unconfirmed, confirmed, start, end);
+            for (Long roomId : unconfirmed) {
+                bookedNights.put(roomId, confirmed.getOrDefault(roomId, new BitSet()));
+            }
+            return bookedNights;
+        }
+
+        List<Long> roomIds = rooms.stream().map(Room::getId).toList();
+        return roomAvailabilityService.findBookedNights(roomIds, start, end);
+    }
+
+    private static int nextSetBitOrEnd(BitSet bits, int from) {
+        int next = bits.nextSetBit(from);
+        return next < 0 ? Integer.MAX_VALUE : next;
+    }
+
+    @Override
+    public Response getAvailableRoomsCacheStats() {
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .cacheStats(availableRoomsCache.stats())
                 .build();
     }
 
@@ -169,6 +416,148 @@ public class RoomServiceImpl implements RoomService {
                 .build();
     }
 
+    @Override
+    public Response checkAvailabilityBatch(List<AvailabilityCheckRequest> requests) {
+
+        if (requests == null || requests.isEmpty())
+            throw new InvalidBookingStateAndDateException("At least one availability check is required");
+
+        if (requests.size() > MAX_BATCH_CHECKS)
+            throw new InvalidBookingStateAndDateException("Maximum " + MAX_BATCH_CHECKS + " availability checks per request");
+
+        if (requests.contains(null))
+            throw new InvalidBookingStateAndDateException("Availability checks cannot be null");
+
+        AvailabilityCheckResult[] results = new AvailabilityCheckResult[requests.size()];
+
+        // Tuples the occupancy index can't answer, or finds booked, are resolved together with one query: a night
+        // released on another instance is still booked in this instance's index
+        List<Integer> uncovered = new ArrayList<>();
+        Set<Long> uncoveredRoomIds = new HashSet<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+
+        for (int i = 0; i < requests.size(); i++) {
+            AvailabilityCheckRequest request = requests.get(i);
+            if (!request.getCheckOutDate().isAfter(request.getCheckInDate()))
+                throw new InvalidBookingStateAndDateException("check out date must be after check in date for room " + request.getRoomId());
+
+            if (roomOccupancyIndex.covers(request.getCheckInDate(), request.getCheckOutDate())
+                    && roomOccupancyIndex.isFree(request.getRoomId(), request.getCheckInDate(), request.getCheckOutDate())) {
+                results[i] = toAvailabilityResult(request, null);
+            } else {
+                uncovered.add(i);
+                uncoveredRoomIds.add(request.getRoomId());
+                if (minDate == null || request.getCheckInDate().isBefore(minDate)) minDate = request.getCheckInDate();
+                if (maxDate == null || request.getCheckOutDate().isAfter(maxDate)) maxDate = request.getCheckOutDate();
+            }
+        }
+
+        if (!uncovered.isEmpty()) {
+            Map<Long, BitSet> bookedNights = roomAvailabilityService.findBookedNights(uncoveredRoomIds, minDate, maxDate);
+
+            for (int i : uncovered) {
+                AvailabilityCheckRequest request = requests.get(i);
+                BitSet nights = bookedNights.getOrDefault(request.getRoomId(), new BitSet());
+                int first = nights.nextSetBit((int) ChronoUnit.DAYS.between(minDate, request.getCheckInDate()));
+                LocalDate firstConflict = first < 0 ? null : minDate.plusDays(first);
+                results[i] = toAvailabilityResult(request,
+                        firstConflict != null && firstConflict.isBefore(request.getCheckOutDate()) ? firstConflict : null);
+            }
+        }
+
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .availabilityResults(List.of(results))
+                .build();
+    }
+
+    private AvailabilityCheckResult toAvailabilityResult(AvailabilityCheckRequest request, LocalDate firstConflictDate) {
+        return AvailabilityCheckResult.builder()
+                .roomId(request.getRoomId())
+                .checkInDate(request.getCheckInDate())
+                .checkOutDate(request.getCheckOutDate())
+                .available(firstConflictDate == null)
+                .firstConflictDate(firstConflictDate)
+                .build();
+    }
+
+    /**
+     * Nights of the room moved to room_availability_history by HistoryArchiver, both dates inclusive.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Response getRoomNightHistory(Long roomId, LocalDate startDate, LocalDate endDate) {
+
+        if (endDate.isBefore(startDate) || ChronoUnit.DAYS.between(startDate, endDate) >= MAX_GRID_DAYS)
+            throw new InvalidBookingStateAndDateException("endDate must be on or after startDate and within " + MAX_GRID_DAYS + " days");
+
+        List<RoomNightDTO> roomNights = roomAvailabilityHistoryRepository
+                .findByRoomIdAndDateBetweenOrderByDate(roomId, startDate, endDate).stream()
+                .map(night -> RoomNightDTO.builder()
+                        .roomId(night.getRoomId())
+                        .date(night.getDate())
+                        .booked(night.isBooked())
+                        .bookingId(night.getBookingId())
+                        .archivedAt(night.getArchivedAt())
+                        .build())
+                .toList();
+
+        return Response.builder()
+                .status(200)
+                .message("success")
+                .roomNights(roomNights)
+                .build();
+    }
+
+    /**
+     * Rooms x days occupancy grid as a streamed JSON body. Each room's "occupancy" is a base64 bitmap,
+     * bit i (byte i / 8, least significant bit first) set = night startDate + i is booked.
+     * Booked nights come from one range scan of the reservation storage.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public StreamingResponseBody getOccupancyGrid(LocalDate startDate, int days) {
+
+        // Checked and read before the response starts, a bad range is a 400 and not a cut off 200
+        if (days < 1 || days > MAX_GRID_DAYS)
+            throw new InvalidBookingStateAndDateException("days must be between 1 and " + MAX_GRID_DAYS);
+
+        List<Room> rooms = roomRepository.findAll(Sort.by(Sort.Direction.ASC, "id"));
+        Map<Long, BitSet> bookedNights = roomAvailabilityService.findBookedNights(null, startDate, startDate.plusDays(days));
+
+        return outputStream -> writeOccupancyGrid(startDate, days, rooms, bookedNights, outputStream);
+    }
+
+    private void writeOccupancyGrid(LocalDate startDate, int days, List<Room> rooms, Map<Long, BitSet> bookedNights,
+                                    OutputStream outputStream) throws IOException {
+        Base64.Encoder encoder = Base64.getEncoder();
+        int bitmapBytes = (days + 7) / 8;
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("startDate", startDate.toString());
+            json.writeNumberField("days", days);
+            json.writeStringField("encoding", "base64-bitmap-lsb");
+            json.writeArrayFieldStart("rooms");
+
+            for (Room room : rooms) {
+                BitSet nights = bookedNights.getOrDefault(room.getId(), new BitSet());
+
+                json.writeStartObject();
+                json.writeNumberField("id", room.getId());
+                json.writeNumberField("roomNumber", room.getRoomNumber());
+                json.writeStringField("type", room.getType().name());
+                json.writeStringField("occupancy", encoder.encodeToString(Arrays.copyOf(nights.toByteArray(), bitmapBytes)));
+                json.writeEndObject();
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
     private String saveImageToFileSystem(MultipartFile imageFile) {
 
         if (!imageFile.getContentType().startsWith("image/")) {
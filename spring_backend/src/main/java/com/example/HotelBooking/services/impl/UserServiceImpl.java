@@ -8,13 +8,16 @@ import com.example.HotelBooking.exceptions.InvalidCredentialException;
 import com.example.HotelBooking.exceptions.NotFoundException;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.AuthUser;
 import com.example.HotelBooking.security.JwtUtils;
+import com.example.HotelBooking.security.UserDetailsCache;
 import com.example.HotelBooking.services.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
 import org.springframework.data.domain.Sort;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -31,6 +34,7 @@ public class UserServiceImpl implements UserService {
     private final JwtUtils jwtUtils;
     private final ModelMapper modelMapper;
     private final BookingRepository bookingRepository;
+    private final UserDetailsCache userDetailsCache;
 
 
     @Override
@@ -97,13 +101,10 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Response getOwnAccountDetails() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(()-> new NotFoundException("User Not Found"));
+        User user = getCurrentLoggedInUser();
 
 
-        log.info("Inside getOwnAccountDetails user email is {}", email);
+        log.info("Inside getOwnAccountDetails user email is {}", user.getEmail());
 
         UserDTO userDTO = modelMapper.map(user, UserDTO.class);
 
@@ -114,9 +115,23 @@ public class UserServiceImpl implements UserService {
                 .build();
     }
 
+    /**
+     * The user AuthFilter put in the security context, which may come from UserDetailsCache: read only,
+     * changes go through a freshly loaded copy (see loadCurrentUserForUpdate).
+     */
     @Override
     public User getCurrentLoggedInUser() {
 
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthUser authUser) {
+            return authUser.getUser();
+        }
+
+        return loadCurrentUserForUpdate();
+    }
+
+    private User loadCurrentUserForUpdate() {
+
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
 
         return userRepository.findByEmail(email)
@@ -125,7 +140,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Response updateOwnAccount(UserDTO userDTO) {
-       User existingUser = getCurrentLoggedInUser();
+       User existingUser = loadCurrentUserForUpdate();
+       String previousEmail = existingUser.getEmail();
        log.info("Inside update user");
 
         if (userDTO.getEmail() != null) existingUser.setEmail(userDTO.getEmail());
@@ -137,6 +153,8 @@ public class UserServiceImpl implements UserService {
             existingUser.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         }
         userRepository.save(existingUser);
+        userDetailsCache.evict(previousEmail);
+        userDetailsCache.evict(existingUser.getEmail());
 
         return Response.builder()
                 .status(200)
@@ -146,8 +164,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Response deleteOwnAccount() {
-        User user = getCurrentLoggedInUser();
+        User user = loadCurrentUserForUpdate();
         userRepository.delete(user);
+        userDetailsCache.evict(user.getEmail());
 
         return Response.builder()
                 .status(200)
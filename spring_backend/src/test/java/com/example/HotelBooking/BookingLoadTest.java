@@ -0,0 +1,224 @@
+package com.example.HotelBooking;
+
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.JwtUtils;
+import com.example.HotelBooking.services.RoomOccupancyIndex;
+import com.example.HotelBooking.services.RoomRateCalendar;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires concurrent POST /api/bookings at a few rooms over a short date window, so most requests compete
+ * for the same nights, then reports throughput and latency and checks the database for double bookings.
+ * Boots the whole app on an embedded H2 database in MySQL mode (application-loadtest.properties).
+ * Excluded from the default build, run with: mvn test -Pload-test
+ * Sizes can be changed with -Dload.requests, -Dload.concurrency, -Dload.rooms and -Dload.window-days.
+ */
+@Slf4j
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 500);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    private static final int ROOMS = Integer.getInteger("load.rooms", 10);
+    private static final int DATE_WINDOW_DAYS = Integer.getInteger("load.window-days", 20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomOccupancyIndex roomOccupancyIndex;
+
+    @Autowired
+    private RoomRateCalendar roomRateCalendar;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Test
+    void concurrentBookingsNeverOverlap() throws Exception {
+        List<Room> rooms = seedRooms();
+        // One user per request so the pending-bookings limit never kicks in
+        List<String> tokens = seedUsers().stream().map(jwtUtils::generateToken).toList();
+        roomOccupancyIndex.rebuild();
+        roomRateCalendar.rebuild();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(CONCURRENCY))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/api/bookings");
+        LocalDate firstCheckIn = LocalDate.now().plusDays(7);
+
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            int request = i;
+            executor.submit(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    LocalDate checkIn = firstCheckIn.plusDays(random.nextInt(DATE_WINDOW_DAYS));
+                    BookingDTO bookingDTO = BookingDTO.builder()
+                            .room(RoomDTO.builder().id(rooms.get(random.nextInt(rooms.size())).getId()).build())
+                            .checkInDate(checkIn)
+                            .checkOutDate(checkIn.plusDays(1 + random.nextInt(4)))
+                            .build();
+                    HttpRequest httpRequest = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .header("Authorization", "Bearer " + tokens.get(request))
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(bookingDTO)))
+                            .build();
+
+                    start.await();
+                    long startNanos = System.nanoTime();
+                    HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+                    latencies[request] = System.nanoTime() - startNanos;
+
+                    if (response.statusCode() == 200) {
+                        booked.incrementAndGet();
+                    } else if (response.statusCode() == 400) {
+                        rejected.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                        log.warn("Unexpected response {}: {}", response.statusCode(), response.body());
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    log.warn("Request failed", e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.MINUTES), "load test did not finish in time");
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        log.info(String.format("requests=%d concurrency=%d rooms=%d booked=%d rejected=%d errors=%d time=%.2fs "
+                        + "throughput=%.1f req/s p50=%.1fms p99=%.1fms max=%.1fms",
+                REQUESTS, CONCURRENCY, ROOMS, booked.get(), rejected.get(), errors.get(), seconds,
+                REQUESTS / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies[latencies.length - 1] / 1_000_000.0));
+
+        // Checked on bookings, the unique (room_id, date) key keeps room_availability from holding a night twice
+        List<String> overlappingBookings = jdbcTemplate.query("""
+                        SELECT a.booking_reference AS first_reference, b.booking_reference AS second_reference FROM bookings a
+                        JOIN bookings b ON a.room_id = b.room_id AND a.id < b.id
+                            AND a.check_in_date < b.check_out_date AND b.check_in_date < a.check_out_date
+                        WHERE a.booking_status <> 'CANCELLED' AND b.booking_status <> 'CANCELLED'
+                        """,
+                (rs, i) -> rs.getString("first_reference") + " / " + rs.getString("second_reference"));
+        Integer bookedNights = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM room_availability WHERE is_booked = true", Integer.class);
+        int bookingNights = jdbcTemplate.query(
+                        "SELECT check_in_date, check_out_date FROM bookings WHERE booking_status <> 'CANCELLED'",
+                        (rs, i) -> ChronoUnit.DAYS.between(rs.getDate("check_in_date").toLocalDate(),
+                                rs.getDate("check_out_date").toLocalDate()))
+                .stream().mapToInt(Long::intValue).sum();
+
+        log.info("overlapping bookings: {}", overlappingBookings);
+
+        assertTrue(booked.get() > 0, "no booking succeeded");
+        assertEquals(List.of(), overlappingBookings, "bookings overlap on the same room");
+        assertEquals(bookingNights, bookedNights, "booked nights do not match the bookings");
+        assertEquals(0, errors.get(), "requests failed with an unexpected status");
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private List<Room> seedRooms() {
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            rooms.add(Room.builder()
+                    .roomNumber(9000 + i)
+                    .type(RoomType.DOUBLE)
+                    .pricePerNight(BigDecimal.valueOf(100))
+                    .capacity(2)
+                    .description("load test room")
+                    .build());
+        }
+        return roomRepository.saveAll(rooms);
+    }
+
+    private List<String> seedUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            users.add(User.builder()
+                    .email("load-" + i + "@example.com")
+                    .password("load-test")
+                    .phoneNumber("0000000000")
+                    .role(UserRole.CUSTOMER)
+                    .isActive(true)
+                    .build());
+        }
+        return userRepository.saveAll(users).stream().map(User::getEmail).toList();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.HotelBooking.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of booking reference generation, single threaded and contended. Not picked up by the
+ * default surefire includes: mvn test -Dtest=BookingCodeGeneratorBenchmark
+ */
+@Slf4j
+class BookingCodeGeneratorBenchmark {
+
+    // Stays inside the burst the generator allows before it waits for the clock
+    private static final int CODES = 60_000;
+    private static final int WARMUP_CODES = 20_000;
+    private static final int THREADS = 8;
+
+    @Test
+    void singleThread() {
+        BookingCodeGenerator warmup = new BookingCodeGenerator(0, "benchmark");
+        for (int i = 0; i < WARMUP_CODES; i++) {
+            warmup.generateBookingReference();
+        }
+
+        BookingCodeGenerator generator = new BookingCodeGenerator(1, "benchmark");
+        long start = System.nanoTime();
+        for (int i = 0; i < CODES; i++) {
+            generator.generateBookingReference();
+        }
+        report("single thread", System.nanoTime() - start);
+    }
+
+    @Test
+    void contended() throws InterruptedException {
+        BookingCodeGenerator generator = new BookingCodeGenerator(2, "benchmark");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < CODES / THREADS; i++) {
+                    generator.generateBookingReference();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        report(THREADS + " threads", System.nanoTime() - start);
+    }
+
+    private static void report(String name, long nanos) {
+        log.info("{}: {} codes in {} ms, {} ns/code, {} codes/s",
+                name, CODES, nanos / 1_000_000, nanos / CODES, Math.round(CODES / (nanos / 1e9)));
+    }
+}
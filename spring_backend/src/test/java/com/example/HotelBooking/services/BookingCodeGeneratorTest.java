@@ -0,0 +1,84 @@
+package com.example.HotelBooking.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingCodeGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int CODES_PER_THREAD = 20_000;
+
+    @Test
+    void referencesUseTheBookingAlphabet() {
+        BookingCodeGenerator generator = new BookingCodeGenerator(0, "test");
+
+        for (int i = 0; i < 1_000; i++) {
+            String reference = generator.generateBookingReference();
+            assertEquals(10, reference.length());
+            assertTrue(reference.matches("[A-Z1-9]{10}"), reference);
+        }
+    }
+
+    @Test
+    void consecutiveReferencesDoNotLookSequential() {
+        BookingCodeGenerator generator = new BookingCodeGenerator(0, "test");
+
+        String first = generator.generateBookingReference();
+        String second = generator.generateBookingReference();
+
+        // The scramble spreads a sequence step over the whole code, not just the last character
+        assertNotEquals(first.substring(0, 8), second.substring(0, 8));
+    }
+
+    @Test
+    void concurrentReferencesFromSeveralNodesAreUnique() throws Exception {
+        // Two instances with different node ids, each hammered by several threads past its per-second sequence
+        List<BookingCodeGenerator> nodes = List.of(
+                new BookingCodeGenerator(1, "test"),
+                new BookingCodeGenerator(2, "test"));
+
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> duplicates = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                BookingCodeGenerator generator = nodes.get(t % nodes.size());
+                duplicates.add(executor.submit(() -> {
+                    int count = 0;
+                    for (int i = 0; i < CODES_PER_THREAD; i++) {
+                        if (!references.add(generator.generateBookingReference())) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+
+            for (Future<Integer> future : duplicates) {
+                assertEquals(0, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(THREADS * CODES_PER_THREAD, references.size());
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new BookingCodeGenerator(32, "test"));
+        assertThrows(IllegalArgumentException.class, () -> new BookingCodeGenerator(-1, "test"));
+    }
+}
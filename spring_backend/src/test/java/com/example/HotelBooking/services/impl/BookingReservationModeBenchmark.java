@@ -0,0 +1,187 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.services.BookingService;
+import com.example.HotelBooking.services.RoomOccupancyIndex;
+import com.example.HotelBooking.services.RoomRateCalendar;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares createBooking throughput of the serializable and optimistic reservation modes with many
+ * threads booking overlapping dates on a small set of rooms. Each mode runs in its own context, set through
+ * booking.reservation.mode, on its own in-memory H2 database of the loadtest profile, so the seeded rooms,
+ * users and bookings are dropped with it. Not picked up by the default surefire includes:
+ * mvn test -Dtest=BookingReservationModeBenchmark
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest
+@Slf4j
+class BookingReservationModeBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_MODE = 400;
+    private static final int ROOMS_PER_MODE = 20;
+    private static final int DATE_WINDOW_DAYS = 30;
+
+    // No DB_CLOSE_DELAY, the database is gone once the context closes its pool
+    private static final String DATABASE_URL = "spring.datasource.url=jdbc:h2:mem:hotel_bench_${booking.reservation.mode};"
+            + "MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000";
+
+    @Nested
+    @TestPropertySource(properties = {"booking.reservation.mode=serializable", DATABASE_URL})
+    class SerializableMode extends ModeBenchmark {
+    }
+
+    @Nested
+    @TestPropertySource(properties = {"booking.reservation.mode=optimistic", DATABASE_URL})
+    class OptimisticMode extends ModeBenchmark {
+    }
+
+    abstract class ModeBenchmark {
+
+        @Autowired
+        private BookingService bookingService;
+
+        @Autowired
+        private RoomRepository roomRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private RoomOccupancyIndex roomOccupancyIndex;
+
+        @Autowired
+        private RoomRateCalendar roomRateCalendar;
+
+        @MockitoBean
+        private JavaMailSender javaMailSender;
+
+        @Value("${booking.reservation.mode}")
+        private String mode;
+
+        @Test
+        void createOverlappingBookings() throws Exception {
+            Result result = run(seedRooms(), LocalDate.now().plusDays(30));
+            log.info("{}", result);
+
+            // Losing a race must surface as a normal booking rejection, never as a deadlock or an internal error
+            assertEquals(0, result.errors(), mode + " mode had unexpected errors");
+        }
+
+        private Result run(List<Room> rooms, LocalDate firstCheckIn) throws InterruptedException {
+            // One user per attempt so the pending-bookings limit never kicks in
+            List<String> emails = seedUsers(ATTEMPTS_PER_MODE);
+
+            AtomicInteger booked = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            long startNanos = System.nanoTime();
+
+            for (String email : emails) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    LocalDate checkIn = firstCheckIn.plusDays(random.nextInt(DATE_WINDOW_DAYS));
+                    BookingDTO bookingDTO = BookingDTO.builder()
+                            .room(RoomDTO.builder().id(rooms.get(random.nextInt(rooms.size())).getId()).build())
+                            .checkInDate(checkIn)
+                            .checkOutDate(checkIn.plusDays(1 + random.nextInt(4)))
+                            .build();
+
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(email, null, List.of()));
+                    try {
+                        bookingService.createBooking(bookingDTO);
+                        booked.incrementAndGet();
+                    } catch (InvalidBookingStateAndDateException e) {
+                        rejected.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                });
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+            return new Result(mode, booked.get(), rejected.get(), errors.get(), seconds);
+        }
+
+        private List<Room> seedRooms() {
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < ROOMS_PER_MODE; i++) {
+                rooms.add(Room.builder()
+                        .roomNumber(100 + i)
+                        .type(RoomType.DOUBLE)
+                        .pricePerNight(BigDecimal.valueOf(100))
+                        .capacity(2)
+                        .description("benchmark room")
+                        .build());
+            }
+            List<Room> saved = roomRepository.saveAll(rooms);
+            roomOccupancyIndex.rebuild();
+            roomRateCalendar.rebuild();
+            return saved;
+        }
+
+        private List<String> seedUsers(int count) {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                users.add(User.builder()
+                        .email("bench-" + UUID.randomUUID() + "@example.com")
+                        .password("benchmark")
+                        .phoneNumber("0000000000")
+                        .role(UserRole.CUSTOMER)
+                        .isActive(true)
+                        .build());
+            }
+            return userRepository.saveAll(users).stream().map(User::getEmail).toList();
+        }
+    }
+
+    private record Result(String mode, int booked, int rejected, int errors, double seconds) {
+        @Override
+        public String toString() {
+            int attempts = booked + rejected + errors;
+            return String.format("%-12s attempts=%d booked=%d rejected=%d errors=%d time=%.2fs throughput=%.1f req/s, %.1f bookings/s",
+                    mode, attempts, booked, rejected, errors, seconds, attempts / seconds, booked / seconds);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.GroupBookingDTO;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.payments.dto.PaymentRequest;
+import com.example.HotelBooking.payments.stripe.StripeService;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.AuthUser;
+import com.example.HotelBooking.services.BookingService;
+import com.example.HotelBooking.services.RoomOccupancyIndex;
+import com.example.HotelBooking.services.RoomRateCalendar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A member of a group booking cancelled on its own must not be charged or marked paid with the group.
+ * Runs on the embedded H2 database of the loadtest profile.
+ */
+@ActiveProfiles("loadtest")
+@SpringBootTest
+class GroupBookingPaymentTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private StripeService stripeService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomOccupancyIndex roomOccupancyIndex;
+
+    @Autowired
+    private RoomRateCalendar roomRateCalendar;
+
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cancelledMemberIsNeitherChargedNorPaid() {
+        List<Room> rooms = roomRepository.saveAll(List.of(room(8101), room(8102)));
+        roomOccupancyIndex.rebuild();
+        roomRateCalendar.rebuild();
+        signIn(userRepository.save(User.builder()
+                .email("group-" + UUID.randomUUID() + "@example.com")
+                .password("group-test")
+                .phoneNumber("0000000000")
+                .role(UserRole.CUSTOMER)
+                .isActive(true)
+                .build()));
+
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        GroupBookingDTO group = bookingService.createGroupBooking(GroupBookingDTO.builder()
+                .bookings(rooms.stream()
+                        .map(room -> BookingDTO.builder()
+                                .room(RoomDTO.builder().id(room.getId()).build())
+                                .checkInDate(checkIn)
+                                .checkOutDate(checkIn.plusDays(2))
+                                .build())
+                        .toList())
+                .build()).getGroupBooking();
+
+        String leadReference = group.getGroupReference();
+        BookingDTO member = group.getBookings().stream()
+                .filter(booking -> !booking.getBookingReference().equals(leadReference))
+                .findFirst()
+                .orElseThrow();
+        bookingService.cancelBooking(member.getBookingReference());
+
+        Booking lead = bookingRepository.findByBookingReference(leadReference).orElseThrow();
+        assertEquals(0, lead.getTotalPrice().compareTo(bookingRepository.sumTotalPriceByGroupReference(leadReference)),
+                "the group amount still includes the cancelled member");
+
+        PaymentRequest payment = new PaymentRequest();
+        payment.setBookingReference(leadReference);
+        payment.setAmount(lead.getTotalPrice());
+        payment.setTransactionId("pi_" + UUID.randomUUID());
+        payment.setSuccess(true);
+        stripeService.updatePaymentBooking(payment);
+
+        Booking paidLead = bookingRepository.findByBookingReference(leadReference).orElseThrow();
+        Booking cancelledMember = bookingRepository.findByBookingReference(member.getBookingReference()).orElseThrow();
+        assertEquals(PaymentStatus.PAID, paidLead.getPaymentStatus());
+        assertEquals(BookingStatus.CANCELLED, cancelledMember.getBookingStatus());
+        assertEquals(PaymentStatus.CANCELLED, cancelledMember.getPaymentStatus());
+    }
+
+    private static Room room(int roomNumber) {
+        return Room.builder()
+                .roomNumber(roomNumber)
+                .type(RoomType.DOUBLE)
+                .pricePerNight(BigDecimal.valueOf(100))
+                .capacity(2)
+                .description("group payment test room")
+                .build();
+    }
+
+    private static void signIn(User user) {
+        AuthUser authUser = AuthUser.builder().user(user).build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(authUser, null, authUser.getAuthorities()));
+    }
+}